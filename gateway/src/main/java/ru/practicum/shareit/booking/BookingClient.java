@@ -10,6 +10,10 @@ import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.client.BaseClient;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -17,42 +21,79 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl,
+                         @Value("${shareit-server.read-timeout}") Duration readTimeout,
+                         RestTemplateBuilder builder) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .setReadTimeout(readTimeout)
                         .build()
         );
     }
 
-    public ResponseEntity<Object> create(BookingRequestDto bookingRequestDto, Long bookerId) {
-        return post("", bookerId, bookingRequestDto);
+    public ResponseEntity<Object> create(BookingRequestDto bookingRequestDto, Long bookerId, String idempotencyKey) {
+        return postIdempotent("", bookerId, idempotencyKey, bookingRequestDto);
+    }
+
+    public ResponseEntity<Object> createAll(List<BookingRequestDto> bookingRequestDtos, Long bookerId) {
+        return post("/batch", bookerId, bookingRequestDtos);
     }
 
     public ResponseEntity<Object> approve(Boolean approved, Long bookingId, Long ownerId) {
         return patch("/" + bookingId + "?approved=" + approved, ownerId, null);
     }
 
+    public ResponseEntity<Object> approveAll(Map<Long, Boolean> decisions, Long ownerId) {
+        return patch("/owner/decisions", ownerId, decisions);
+    }
+
     public ResponseEntity<Object> findById(Long bookingId, Long userId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> findAllByUserIdAndState(Long userId, String state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state,
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<Object> findSummaryByUserId(Long userId) {
+        return get("/summary", userId);
+    }
+
+    public ResponseEntity<Object> findSummaryByOwnerId(Long ownerId) {
+        return get("/owner/summary", ownerId);
+    }
+
+    public void exportByUserId(Long userId, HttpServletResponse response) throws IOException {
+        stream("/export", userId, response);
+    }
+
+    public void exportByOwnerId(Long ownerId, HttpServletResponse response) throws IOException {
+        stream("/owner/export", ownerId, response);
     }
 
-    public ResponseEntity<Object> findAllByOwnerIdAndState(Long ownerId, String state, int from, int size) {
+    public ResponseEntity<Object> findAllByUserIdAndState(Long userId, String state, String cursor, int from, int size) {
+        return findAllByState("", userId, state, cursor, from, size);
+    }
+
+    public ResponseEntity<Object> findAllByOwnerIdAndState(Long ownerId, String state, String cursor, int from,
+                                                           int size) {
+        return findAllByState("/owner", ownerId, state, cursor, from, size);
+    }
+
+    private ResponseEntity<Object> findAllByState(String path, Long userId, String state, String cursor, int from,
+                                                  int size) {
+        if (cursor != null) {
+            Map<String, Object> parameters = Map.of(
+                    "state", state,
+                    "cursor", cursor,
+                    "size", size
+            );
+            return get(path + "?state={state}&cursor={cursor}&size={size}", userId, parameters);
+        }
+
         Map<String, Object> parameters = Map.of(
                 "state", state,
                 "from", from,
                 "size", size
         );
-        return get("/owner?state={state}&from={from}&size={size}", ownerId, parameters);
+        return get(path + "?state={state}&from={from}&size={size}", userId, parameters);
     }
 }
@@ -8,10 +8,15 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -21,14 +26,23 @@ import javax.validation.constraints.PositiveOrZero;
 public class BookingController {
 
     static final String USER_ID = "X-Sharer-User-Id";
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
     BookingClient bookingClient;
 
 
     @PostMapping
     public ResponseEntity<Object> create(
             @Valid @RequestBody BookingRequestDto bookingRequestDto,
+            @RequestHeader(USER_ID) @NotNull Long bookerId,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return bookingClient.create(bookingRequestDto, bookerId, idempotencyKey);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<Object> createAll(
+            @RequestBody @NotEmpty List<@Valid BookingRequestDto> bookingRequestDtos,
             @RequestHeader(USER_ID) @NotNull Long bookerId) {
-        return bookingClient.create(bookingRequestDto, bookerId);
+        return bookingClient.createAll(bookingRequestDtos, bookerId);
     }
 
     @PatchMapping("/{bookingId}")
@@ -39,6 +53,37 @@ public class BookingController {
         return bookingClient.approve(approved, bookingId, ownerId);
     }
 
+    @PatchMapping("/owner/decisions")
+    public ResponseEntity<Object> approveAll(
+            @RequestBody @NotEmpty Map<@NotNull Long, @NotNull Boolean> decisions,
+            @RequestHeader(USER_ID) @NotNull Long ownerId) {
+        return bookingClient.approveAll(decisions, ownerId);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<Object> findSummaryByUserId(@RequestHeader(USER_ID) @NotNull Long userId) {
+        return bookingClient.findSummaryByUserId(userId);
+    }
+
+    @GetMapping("/owner/summary")
+    public ResponseEntity<Object> findSummaryByOwnerId(@RequestHeader(USER_ID) @NotNull Long ownerId) {
+        return bookingClient.findSummaryByOwnerId(ownerId);
+    }
+
+    @GetMapping("/export")
+    public void exportByUserId(
+            @RequestHeader(USER_ID) @NotNull Long userId,
+            HttpServletResponse response) throws IOException {
+        bookingClient.exportByUserId(userId, response);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportByOwnerId(
+            @RequestHeader(USER_ID) @NotNull Long ownerId,
+            HttpServletResponse response) throws IOException {
+        bookingClient.exportByOwnerId(ownerId, response);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> findById(
             @PathVariable Long bookingId,
@@ -50,18 +95,20 @@ public class BookingController {
     public ResponseEntity<Object> findAllByUserIdAndState(
             @RequestHeader(USER_ID) @NotNull Long userId,
             @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false) String cursor,
             @PositiveOrZero @RequestParam(required = false, defaultValue = "0") int from,
             @Positive @RequestParam(required = false, defaultValue = "20") int size) {
 
-        return bookingClient.findAllByUserIdAndState(userId, state, from, size);
+        return bookingClient.findAllByUserIdAndState(userId, state, cursor, from, size);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> findAllByOwnerIdAndState(
             @RequestHeader(USER_ID) @NotNull Long ownerId,
             @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false) String cursor,
             @PositiveOrZero @RequestParam(required = false, defaultValue = "0") int from,
             @Positive @RequestParam(required = false, defaultValue = "20") int size) {
-        return bookingClient.findAllByOwnerIdAndState(ownerId, state, from, size);
+        return bookingClient.findAllByOwnerIdAndState(ownerId, state, cursor, from, size);
     }
 }
\ No newline at end of file
@@ -1,14 +1,23 @@
 package ru.practicum.shareit.client;
 
 import org.springframework.http.*;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
+@Slf4j
 public class BaseClient {
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final int IDEMPOTENT_ATTEMPTS = 3;
     protected final RestTemplate rest;
 
     public BaseClient(RestTemplate rest) {
@@ -53,6 +62,28 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
+    /**
+     * Sends a POST that the server deduplicates by its idempotency key, so it can be retried when the server does not
+     * answer in time. A key is generated when the caller has not sent one.
+     */
+    protected <T> ResponseEntity<Object> postIdempotent(String path, long userId, @Nullable String idempotencyKey,
+                                                        T body) {
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.set(IDEMPOTENCY_KEY, idempotencyKey != null ? idempotencyKey : UUID.randomUUID().toString());
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return send(HttpMethod.POST, path, null, requestEntity);
+            } catch (ResourceAccessException e) {
+                if (attempt == IDEMPOTENT_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Retrying POST {} after attempt {} failed: {}", path, attempt, e.getMessage());
+            }
+        }
+    }
+
     protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
@@ -89,9 +120,39 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    /**
+     * Copies the server response straight into the gateway response instead of reading it into an object first, so
+     * large bodies pass through with a fixed-size buffer.
+     */
+    protected void stream(String path, long userId, HttpServletResponse response) throws IOException {
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON));
+
+        try {
+            rest.execute(path, HttpMethod.GET, request -> request.getHeaders().putAll(headers),
+                    shareitServerResponse -> {
+                        response.setStatus(shareitServerResponse.getRawStatusCode());
+                        MediaType contentType = shareitServerResponse.getHeaders().getContentType();
+                        if (contentType != null) {
+                            response.setContentType(contentType.toString());
+                        }
+                        StreamUtils.copy(shareitServerResponse.getBody(), response.getOutputStream());
+                        return null;
+                    });
+        } catch (HttpStatusCodeException e) {
+            response.setStatus(e.getRawStatusCode());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            StreamUtils.copy(e.getResponseBodyAsByteArray(), response.getOutputStream());
+        }
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        return send(method, path, parameters, requestEntity);
+    }
 
+    private <T> ResponseEntity<Object> send(HttpMethod method, String path, @Nullable Map<String, Object> parameters,
+                                            HttpEntity<T> requestEntity) {
         ResponseEntity<Object> shareitServerResponse;
         try {
             if (parameters != null) {
@@ -11,6 +11,8 @@ import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Service
@@ -19,17 +21,20 @@ public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl,
+                      @Value("${shareit-server.read-timeout}") Duration readTimeout,
+                      RestTemplateBuilder builder) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .setReadTimeout(readTimeout)
                         .build()
         );
     }
 
-    public ResponseEntity<Object> createItem(ItemDto itemDto, Long userId) {
-        return post("", userId, itemDto);
+    public ResponseEntity<Object> createItem(ItemDto itemDto, Long userId, String idempotencyKey) {
+        return postIdempotent("", userId, idempotencyKey, itemDto);
     }
 
     public ResponseEntity<Object> updateItem(ItemDto itemDto, Long itemId, Long userId) {
@@ -40,6 +45,14 @@ public class ItemClient extends BaseClient {
         return get("/" + itemId, userId);
     }
 
+    public ResponseEntity<Object> getAvailability(Long itemId, Long userId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
     public ResponseEntity<Object> getAllItems(Long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
@@ -48,13 +61,36 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> search(String text, Long userId, int from, int size) {
+    public ResponseEntity<Object> search(String text, Long userId, String mode, int from, int size) {
+        Map<String, Object> parameters = Map.of(
+                "text", text,
+                "mode", mode,
+                "from", from,
+                "size", size
+        );
+        return get("/search?text={text}&mode={mode}&from={from}&size={size}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> searchNear(String text, Long userId, String mode, String near, double radius,
+                                             int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
+                "mode", mode,
+                "near", near,
+                "radius", radius,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return get("/search?text={text}&mode={mode}&near={near}&radius={radius}&from={from}&size={size}", userId,
+                parameters);
+    }
+
+    public ResponseEntity<Object> suggest(String prefix, Long userId, int limit) {
+        Map<String, Object> parameters = Map.of(
+                "prefix", prefix,
+                "limit", limit
+        );
+        return get("/suggest?prefix={prefix}&limit={limit}", userId, parameters);
     }
 
     public ResponseEntity<Object> addComment(Long userId, Long itemId, CommentRequestDto commentRequestDto) {
@@ -3,6 +3,7 @@ package ru.practicum.shareit.item;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -10,8 +11,12 @@ import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/items")
@@ -20,12 +25,16 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class ItemController {
     static final String USER_ID = "X-Sharer-User-Id";
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String NEAR = "[-+]?\\d{1,2}(\\.\\d+)?,[-+]?\\d{1,3}(\\.\\d+)?";
     ItemClient itemClient;
 
     @PostMapping
     public ResponseEntity<Object> createItem(@Valid @RequestBody ItemDto itemDto,
-                                             @RequestHeader(USER_ID) Long userId) {
-        return itemClient.createItem(itemDto, userId);
+                                             @RequestHeader(USER_ID) Long userId,
+                                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false)
+                                             String idempotencyKey) {
+        return itemClient.createItem(itemDto, userId, idempotencyKey);
     }
 
     @PatchMapping("/{itemId}")
@@ -41,6 +50,15 @@ public class ItemController {
         return itemClient.getItem(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getAvailability(
+            @PathVariable Long itemId,
+            @RequestHeader(USER_ID) Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemClient.getAvailability(itemId, userId, from, to);
+    }
+
     @GetMapping()
     public ResponseEntity<Object> getAllItems(
             @RequestHeader(USER_ID) Long userId,
@@ -53,9 +71,23 @@ public class ItemController {
     public ResponseEntity<Object> search(
             @RequestParam String text,
             @RequestHeader(USER_ID) Long userId,
+            @RequestParam(required = false, defaultValue = "plain") String mode,
+            @Pattern(regexp = NEAR) @RequestParam(required = false) String near,
+            @Positive @DecimalMax("500") @RequestParam(required = false, defaultValue = "10") double radius,
             @PositiveOrZero @RequestParam(required = false, defaultValue = "0") int from,
             @Positive @RequestParam(required = false, defaultValue = "20") int size) {
-        return itemClient.search(text, userId, from, size);
+        if (near != null) {
+            return itemClient.searchNear(text, userId, mode, near, radius, from, size);
+        }
+        return itemClient.search(text, userId, mode, from, size);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> suggest(
+            @RequestParam String prefix,
+            @RequestHeader(USER_ID) Long userId,
+            @Positive @Max(100) @RequestParam(required = false, defaultValue = "10") int limit) {
+        return itemClient.suggest(prefix, userId, limit);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -6,8 +6,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.FieldDefaults;
 
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.util.Objects;
 
 @Data
 @NoArgsConstructor
@@ -21,4 +25,15 @@ public class ItemDto {
     @NotNull
     Boolean available;
     Long requestId;
+    @DecimalMin("-90")
+    @DecimalMax("90")
+    Double latitude;
+    @DecimalMin("-180")
+    @DecimalMax("180")
+    Double longitude;
+
+    @AssertTrue(message = "Latitude and longitude must be set together")
+    private boolean isLocationComplete() {
+        return Objects.isNull(latitude) == Objects.isNull(longitude);
+    }
 }
@@ -1,17 +1,30 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
-import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 
-import java.util.Collection;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
@@ -22,15 +35,30 @@ import java.util.stream.Collectors;
 public class BookingController {
 
     static final String USER_ID = "X-Sharer-User-Id";
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
     BookingService bookingService;
     BookingMapper bookingMapper;
+    IdempotencyStore idempotencyStore;
+    ObjectMapper objectMapper;
 
     @PostMapping
     public BookingResponseDto create(
             @RequestBody BookingRequestDto bookingRequestDto,
+            @RequestHeader(USER_ID) Long bookerId,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(bookerId, "POST /bookings", idempotencyKey, bookingRequestDto,
+                () -> bookingMapper.toBookingResponse(bookingService.create(
+                        bookingMapper.toBooking(bookingRequestDto), bookerId)));
+    }
+
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createAll(
+            @RequestBody List<BookingRequestDto> bookingRequestDtos,
             @RequestHeader(USER_ID) Long bookerId) {
-        return bookingMapper.toBookingResponse(bookingService.create(bookingMapper.toBooking(bookingRequestDto),
-                bookerId));
+        return bookingService.createAll(bookingRequestDtos.stream()
+                .map(bookingMapper::toBooking)
+                .collect(Collectors.toList()), bookerId);
     }
 
     @PatchMapping("/{bookingId}")
@@ -40,6 +68,35 @@ public class BookingController {
         return bookingMapper.toBookingResponse(bookingService.approve(bookingId, ownerId, approved));
     }
 
+    @PatchMapping("/owner/decisions")
+    public List<BookingResponseDto> approveAll(
+            @RequestBody Map<Long, Boolean> decisions,
+            @RequestHeader(USER_ID) Long ownerId) {
+        return bookingService.approveAll(decisions, ownerId).stream()
+                .map(bookingMapper::toBookingResponse)
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/summary")
+    public BookingSummaryDto findSummaryByUserId(@RequestHeader(USER_ID) Long userId) {
+        return bookingService.findSummaryByUserId(userId);
+    }
+
+    @GetMapping("/owner/summary")
+    public BookingSummaryDto findSummaryByOwnerId(@RequestHeader(USER_ID) Long ownerId) {
+        return bookingService.findSummaryByOwnerId(ownerId);
+    }
+
+    @GetMapping("/export")
+    public void exportByUserId(@RequestHeader(USER_ID) Long userId, HttpServletResponse response) throws IOException {
+        writeNdjson(response, consumer -> bookingService.exportByUserId(userId, consumer));
+    }
+
+    @GetMapping("/owner/export")
+    public void exportByOwnerId(@RequestHeader(USER_ID) Long ownerId, HttpServletResponse response) throws IOException {
+        writeNdjson(response, consumer -> bookingService.exportByOwnerId(ownerId, consumer));
+    }
+
     @GetMapping("/{bookingId}")
     public BookingResponseDto findById(
             @PathVariable Long bookingId,
@@ -48,22 +105,64 @@ public class BookingController {
     }
 
     @GetMapping
-    public Collection<BookingResponseDto> findAllByUserIdAndState(
+    public ResponseEntity<List<BookingResponseDto>> findAllByUserIdAndState(
             @RequestHeader(USER_ID) Long userId,
             @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false) String cursor,
             @RequestParam(required = false, defaultValue = "0") int from,
             @RequestParam(required = false, defaultValue = "20") int size) {
-        List<Booking> result = bookingService.findByUserIdAndState(userId, state, from, size);
-        return result.stream().map(bookingMapper::toBookingResponse).collect(Collectors.toList());
+        List<BookingResponseDto> result = cursor == null
+                ? bookingService.findByUserIdAndState(userId, state, from, size)
+                : bookingService.findByUserIdAndStateAfterCursor(userId, state, cursor, size);
+        return toPage(result, size);
     }
 
     @GetMapping("/owner")
-    public List<BookingResponseDto> findAllByOwnerIdAndState(
+    public ResponseEntity<List<BookingResponseDto>> findAllByOwnerIdAndState(
             @RequestHeader(USER_ID) Long ownerId,
             @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false) String cursor,
             @RequestParam(required = false, defaultValue = "0") int from,
             @RequestParam(required = false, defaultValue = "20") int size) {
-        List<Booking> result = bookingService.findByOwnerIdAndState(ownerId, state, from, size);
-        return result.stream().map(bookingMapper::toBookingResponse).collect(Collectors.toList());
+        List<BookingResponseDto> result = cursor == null
+                ? bookingService.findByOwnerIdAndState(ownerId, state, from, size)
+                : bookingService.findByOwnerIdAndStateAfterCursor(ownerId, state, cursor, size);
+        return toPage(result, size);
+    }
+
+    /**
+     * A full page may have a continuation, so its last booking is handed back as the cursor for the next one.
+     */
+    private ResponseEntity<List<BookingResponseDto>> toPage(List<BookingResponseDto> bookings, int size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            response.header(NEXT_CURSOR, BookingCursor.of(bookings.get(bookings.size() - 1)).encode());
+        }
+        return response.body(bookings);
+    }
+
+    /**
+     * Writes each booking as one JSON line as soon as it is read. The content type is set only once the service has
+     * started exporting, so a rejected request still gets a regular JSON error.
+     */
+    private void writeNdjson(HttpServletResponse response, Consumer<Consumer<BookingResponseDto>> export) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(BookingResponseDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null);
+
+        export.accept(booking -> {
+            if (response.getContentType() == null) {
+                response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            }
+            try {
+                writer.writeValue(generator, booking);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        generator.flush();
     }
-}
\ No newline at end of file
+}
@@ -20,4 +20,27 @@ public class BookingResponseDto {
     LocalDateTime start;
     LocalDateTime end;
     Status status;
+
+    /**
+     * Builds the response from the flat row selected by the listing queries of
+     * {@link ru.practicum.shareit.booking.repository.BookingRepository}.
+     */
+    public BookingResponseDto(Long id, LocalDateTime start, LocalDateTime end, Status status, Long itemId,
+                              String itemName, String itemDescription, Boolean itemAvailable, Long itemRequestId,
+                              Long bookerId, String bookerName, String bookerEmail) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.status = status;
+        this.item = new ItemDto();
+        this.item.setId(itemId);
+        this.item.setName(itemName);
+        this.item.setDescription(itemDescription);
+        this.item.setAvailable(itemAvailable);
+        this.item.setRequestId(itemRequestId);
+        this.booker = new UserDto();
+        this.booker.setId(bookerId);
+        this.booker.setName(bookerName);
+        this.booker.setEmail(bookerEmail);
+    }
 }
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last or next approved booking of an item, as returned by
+ * {@link ru.practicum.shareit.booking.repository.BookingRepository#findLastAndNextBookingsByItemIds}.
+ */
+public interface ItemBookingView {
+    Long getId();
+
+    Long getItemId();
+
+    Long getBookerId();
+
+    LocalDateTime getStartDate();
+
+    LocalDateTime getEndDate();
+
+    boolean isPast();
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.exception;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class BookingWrongCursorException extends RuntimeException {
+    public BookingWrongCursorException(String message) {
+        super(message);
+        log.warn(message);
+    }
+}
@@ -7,6 +7,8 @@ import org.mapstruct.ReportingPolicy;
 import ru.practicum.shareit.booking.dto.BookingInfoDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.user.mapper.UserMapper;
@@ -20,7 +22,10 @@ public interface BookingMapper {
     @BeanMapping(unmappedTargetPolicy = ReportingPolicy.IGNORE)
     Booking toBooking(BookingRequestDto dto);
 
-    @Mapping(target = "bookerId", source = "booking.booker.id")
-    @BeanMapping(unmappedTargetPolicy = ReportingPolicy.IGNORE)
-    BookingInfoDto toBookingInfo(Booking booking);
+    @Mapping(target = "phase", constant = "PAST")
+    Booking fromArchived(ArchivedBooking booking);
+
+    @Mapping(target = "start", source = "booking.startDate")
+    @Mapping(target = "end", source = "booking.endDate")
+    BookingInfoDto toItemBookingInfo(ItemBookingView booking);
 }
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An approved booking that ended before the retention horizon and was moved out of the bookings table. Archived
+ * bookings are always in the PAST phase, so the phase is not stored.
+ */
+@Data
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Table(name = "bookings_archive")
+public class ArchivedBooking {
+    @Id
+    Long id;
+    @Column(name = "start_date")
+    LocalDateTime start;
+    @Column(name = "end_date")
+    LocalDateTime end;
+    @ManyToOne(targetEntity = Item.class, fetch = FetchType.LAZY)
+    Item item;
+    @ManyToOne(targetEntity = User.class, fetch = FetchType.LAZY)
+    User booker;
+    @Enumerated(EnumType.STRING)
+    Status status;
+    @Column(name = "owner_id")
+    Long ownerId;
+}
@@ -22,7 +22,8 @@ import java.time.LocalDateTime;
 @DynamicUpdate
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     long id;
     @Column(name = "start_date")
     LocalDateTime start;
@@ -34,5 +35,22 @@ public class Booking {
     User booker;
     @Enumerated(EnumType.STRING)
     Status status;
+    /**
+     * Copy of the item owner id, so owner listings don't join items.
+     */
+    @Column(name = "owner_id")
+    Long ownerId;
+    @Enumerated(EnumType.STRING)
+    Phase phase;
+
+    @PrePersist
+    void prePersist() {
+        if (item != null && item.getOwner() != null) {
+            ownerId = item.getOwner().getId();
+        }
+        if (start != null && end != null) {
+            phase = Phase.of(start, end, LocalDateTime.now());
+        }
+    }
 }
 
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Status;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    /**
+     * Same columns as {@link BookingRepository#RESPONSE}.
+     */
+    String RESPONSE = "SELECT new ru.practicum.shareit.booking.dto.BookingResponseDto(b.id, b.start, b.end, " +
+            "b.status, i.id, i.name, i.description, i.available, i.request.id, u.id, u.name, u.email) " +
+            "FROM ArchivedBooking b JOIN b.item i JOIN b.booker u ";
+    /**
+     * Counts archived bookings as ALL and PAST only, the states whose listings read the archive.
+     */
+    String SUMMARY = "SELECT new ru.practicum.shareit.booking.dto.BookingSummaryDto(COUNT(b), 0L, COUNT(b), 0L, " +
+            "0L, 0L) FROM ArchivedBooking b ";
+
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByBookerId(@Param("bookerId") Long bookerId, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId " +
+            "AND (b.start, b.id) < (:cursorStart, :cursorId) ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByBookerIdBeforeCursor(@Param("bookerId") Long bookerId,
+                                                        @Param("cursorStart") LocalDateTime cursorStart,
+                                                        @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE b.ownerId = :ownerId ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE b.ownerId = :ownerId " +
+            "AND (b.start, b.id) < (:cursorStart, :cursorId) ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByOwnerIdBeforeCursor(@Param("ownerId") Long ownerId,
+                                                       @Param("cursorStart") LocalDateTime cursorStart,
+                                                       @Param("cursorId") Long cursorId, Pageable pageable);
+
+    /**
+     * Streams all archived bookings of a booker as response rows with a database cursor; must be consumed inside a
+     * transaction.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE,
+            value = BookingRepository.EXPORT_FETCH_SIZE))
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId ORDER BY b.start DESC, b.id DESC")
+    Stream<BookingResponseDto> streamByBookerId(@Param("bookerId") Long bookerId);
+
+    /**
+     * Streams all archived bookings of an owner's items as response rows with a database cursor; must be consumed
+     * inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE,
+            value = BookingRepository.EXPORT_FETCH_SIZE))
+    @Query(RESPONSE + "WHERE b.ownerId = :ownerId ORDER BY b.start DESC, b.id DESC")
+    Stream<BookingResponseDto> streamByOwnerId(@Param("ownerId") Long ownerId);
+
+    /**
+     * Counts the archived bookings of a booker; all of them are PAST.
+     */
+    @Query(SUMMARY + "WHERE b.booker.id = :bookerId")
+    BookingSummaryDto countByBookerIdPerState(@Param("bookerId") Long bookerId);
+
+    /**
+     * Counts the archived bookings of an owner's items; all of them are PAST.
+     */
+    @Query(SUMMARY + "WHERE b.ownerId = :ownerId")
+    BookingSummaryDto countByOwnerIdPerState(@Param("ownerId") Long ownerId);
+
+    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM ArchivedBooking b " +
+            "WHERE b.booker.id = :bookerId AND b.item.id = :itemId AND b.status = :status")
+    boolean existsByBookerIdAndItemIdAndStatus(@Param("bookerId") Long bookerId, @Param("itemId") Long itemId,
+                                               @Param("status") Status status);
+
+    @Query("SELECT b FROM ArchivedBooking b JOIN FETCH b.item JOIN FETCH b.booker WHERE b.id = :bookingId")
+    Optional<ArchivedBooking> findWithItemAndBookerById(@Param("bookingId") Long bookingId);
+
+    /**
+     * Copies bookings into the archive as they are; the caller deletes them from the bookings table in the same
+     * transaction.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO bookings_archive (id, start_date, end_date, item_id, booker_id, owner_id, status) " +
+            "SELECT id, start_date, end_date, item_id, booker_id, owner_id, status FROM bookings " +
+            "WHERE id IN (:bookingIds)", nativeQuery = true)
+    int copyFromBookings(@Param("bookingIds") Collection<Long> bookingIds);
+}
@@ -2,60 +2,265 @@ package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingPartiesDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.FinishedBookingDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
 import ru.practicum.shareit.booking.model.Status;
-import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findByBookerIdOrderByStartDesc(Long bookerId, Pageable pageable);
+    String EXPORT_FETCH_SIZE = "500";
+    /**
+     * Selects only the columns of {@link BookingResponseDto}; the listings return these rows instead of entities.
+     */
+    String RESPONSE = "SELECT new ru.practicum.shareit.booking.dto.BookingResponseDto(b.id, b.start, b.end, " +
+            "b.status, i.id, i.name, i.description, i.available, i.request.id, u.id, u.name, u.email) " +
+            "FROM Booking b JOIN b.item i JOIN b.booker u ";
+    String SUMMARY = "SELECT new ru.practicum.shareit.booking.dto.BookingSummaryDto(COUNT(b), " +
+            "COALESCE(SUM(CASE WHEN b.phase = ru.practicum.shareit.booking.model.Phase.CURRENT " +
+            "THEN 1 ELSE 0 END), 0L), " +
+            "COALESCE(SUM(CASE WHEN b.phase = ru.practicum.shareit.booking.model.Phase.PAST " +
+            "THEN 1 ELSE 0 END), 0L), " +
+            "COALESCE(SUM(CASE WHEN b.phase = ru.practicum.shareit.booking.model.Phase.FUTURE " +
+            "THEN 1 ELSE 0 END), 0L), " +
+            "COALESCE(SUM(CASE WHEN b.status = ru.practicum.shareit.booking.model.Status.WAITING " +
+            "THEN 1 ELSE 0 END), 0L), " +
+            "COALESCE(SUM(CASE WHEN b.status = ru.practicum.shareit.booking.model.Status.REJECTED " +
+            "THEN 1 ELSE 0 END), 0L)) " +
+            "FROM Booking b ";
 
-    List<Booking> findByBookerIdAndStatusOrderByStartDesc(Long bookerId, Status status, Pageable pageable);
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByBookerIdOrderByStartDesc(@Param("bookerId") Long bookerId, Pageable pageable);
 
-    List<Booking> findByBookerIdAndEndIsBeforeOrderByStartDesc(Long bookerId, LocalDateTime end, Pageable pageable);
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId AND b.status = :status ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByBookerIdAndStatusOrderByStartDesc(@Param("bookerId") Long bookerId,
+                                                                     @Param("status") Status status,
+                                                                     Pageable pageable);
 
-    List<Booking> findByBookerIdAndStartIsAfterOrderByStartDesc(Long bookerId, LocalDateTime start, Pageable pageable);
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId AND b.phase = :phase ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByBookerIdAndPhaseOrderByStartDesc(@Param("bookerId") Long bookerId,
+                                                                    @Param("phase") Phase phase, Pageable pageable);
 
-    List<Booking> findAllByBookerIdAndStartBeforeAndEndAfterOrderByIdAsc(
-            Long bookerId, LocalDateTime start, LocalDateTime end, Pageable pageable
-    );
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId AND b.phase = :phase ORDER BY b.id")
+    List<BookingResponseDto> findByBookerIdAndPhaseOrderByIdAsc(@Param("bookerId") Long bookerId,
+                                                                @Param("phase") Phase phase, Pageable pageable);
 
-    List<Booking> findByBookerIdAndItemIdAndEndIsBeforeAndStatusOrderByStartDesc(
-            Long bookerId, Long itemId, LocalDateTime now, Status status
-    );
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId AND " +
+            "(b.start, b.id) < (:cursorStart, :cursorId) ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByBookerIdBeforeCursor(@Param("bookerId") Long bookerId,
+                                                        @Param("cursorStart") LocalDateTime cursorStart,
+                                                        @Param("cursorId") Long cursorId, Pageable pageable);
 
-    @Query("SELECT b FROM Booking b, Item i WHERE b.item.id = i.id AND i.owner = :owner " +
-            "ORDER BY b.start DESC")
-    List<Booking> findByOwnerId(@Param("owner") User owner, Pageable pageable);
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId AND b.status = :status AND " +
+            "(b.start, b.id) < (:cursorStart, :cursorId) ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByBookerIdAndStatusBeforeCursor(@Param("bookerId") Long bookerId,
+                                                                 @Param("status") Status status,
+                                                                 @Param("cursorStart") LocalDateTime cursorStart,
+                                                                 @Param("cursorId") Long cursorId, Pageable pageable);
 
-    @Query("SELECT b FROM Booking b, Item i WHERE b.item.id = i.id AND i.owner = :owner AND " +
-            "b.status = :status ORDER BY b.start DESC")
-    List<Booking> findByOwnerIdAndStatus(@Param("owner") User owner, @Param("status") Status status, Pageable pageable);
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId AND b.phase = :phase AND " +
+            "(b.start, b.id) < (:cursorStart, :cursorId) ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByBookerIdAndPhaseBeforeCursor(@Param("bookerId") Long bookerId,
+                                                                @Param("phase") Phase phase,
+                                                                @Param("cursorStart") LocalDateTime cursorStart,
+                                                                @Param("cursorId") Long cursorId, Pageable pageable);
 
-    @Query("SELECT b FROM Booking b, Item i WHERE b.item.id = i.id AND i.owner = :owner AND " +
-            "b.start > CURRENT_TIMESTAMP ORDER BY b.start DESC")
-    List<Booking> findByOwnerIdInFuture(@Param("owner") User owner, Pageable pageable);
+    /**
+     * Current bookings of a booker are listed by ascending id, so only the id part of the cursor is used.
+     */
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId AND b.phase = :phase AND " +
+            "b.id > :cursorId ORDER BY b.id")
+    List<BookingResponseDto> findByBookerIdAndPhaseAfterCursor(@Param("bookerId") Long bookerId,
+                                                               @Param("phase") Phase phase,
+                                                               @Param("cursorId") Long cursorId, Pageable pageable);
 
-    @Query("SELECT b FROM Booking b, Item i WHERE b.item.id = i.id AND i.owner = :owner AND " +
-            "b.end < CURRENT_TIMESTAMP ORDER BY b.start DESC")
-    List<Booking> findByOwnerIdInPast(@Param("owner") User owner, Pageable pageable);
+    /**
+     * Streams all bookings of a booker as response rows with a database cursor; must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(RESPONSE + "WHERE b.booker.id = :bookerId ORDER BY b.start DESC, b.id DESC")
+    Stream<BookingResponseDto> streamByBookerId(@Param("bookerId") Long bookerId);
 
-    @Query("SELECT b FROM Booking b, Item i WHERE b.item.id = i.id AND i.owner = :owner AND " +
-            "b.start <= CURRENT_TIMESTAMP AND b.end >= CURRENT_TIMESTAMP ORDER BY b.start DESC")
-    List<Booking> findByOwnerIdInCurrent(@Param("owner") User owner, Pageable pageable);
+    /**
+     * Counts the bookings of a booker for every state in a single pass.
+     */
+    @Query(SUMMARY + "WHERE b.booker.id = :bookerId")
+    BookingSummaryDto countByBookerIdPerState(@Param("bookerId") Long bookerId);
 
-    @Query(value = "SELECT * FROM Bookings WHERE item_id = :itemId AND start_date < CURRENT_TIMESTAMP AND " +
-            "status = 'APPROVED' ORDER BY start_date DESC LIMIT 1", nativeQuery = true)
-    Booking findLastBookingByItemId(@Param("itemId") Long itemId);
+    @Query("SELECT b FROM Booking b WHERE b.item.id = :itemId AND b.status IN :statuses AND b.end > :end")
+    List<Booking> findByItemIdAndStatusInAndEndAfter(@Param("itemId") Long itemId,
+                                                     @Param("statuses") Collection<Status> statuses,
+                                                     @Param("end") LocalDateTime end);
 
-    @Query(value = "SELECT * FROM Bookings WHERE item_id = :itemId AND start_date > CURRENT_TIMESTAMP AND " +
-            "status = 'APPROVED' ORDER BY start_date LIMIT 1", nativeQuery = true)
-    Booking findNextBookingByItemId(@Param("itemId") Long itemId);
+    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM Booking b " +
+            "WHERE b.booker.id = :bookerId AND b.item.id = :itemId AND b.end < :now AND b.status = :status")
+    boolean existsByBookerIdAndItemIdAndEndIsBeforeAndStatus(@Param("bookerId") Long bookerId,
+                                                             @Param("itemId") Long itemId,
+                                                             @Param("now") LocalDateTime now,
+                                                             @Param("status") Status status);
 
+    @Query(RESPONSE + "WHERE b.ownerId = :ownerId " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE b.ownerId = :ownerId AND " +
+            "b.status = :status ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByOwnerIdAndStatus(@Param("ownerId") Long ownerId, @Param("status") Status status,
+                                                    Pageable pageable);
+
+    @Query(RESPONSE + "WHERE b.ownerId = :ownerId AND b.phase = :phase ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByOwnerIdAndPhaseOrderByStartDesc(@Param("ownerId") Long ownerId,
+                                                                   @Param("phase") Phase phase, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE b.ownerId = :ownerId AND " +
+            "(b.start, b.id) < (:cursorStart, :cursorId) ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByOwnerIdBeforeCursor(@Param("ownerId") Long ownerId,
+                                                       @Param("cursorStart") LocalDateTime cursorStart,
+                                                       @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE b.ownerId = :ownerId AND " +
+            "b.status = :status AND (b.start, b.id) < (:cursorStart, :cursorId) ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByOwnerIdAndStatusBeforeCursor(@Param("ownerId") Long ownerId, @Param("status") Status status,
+                                                                @Param("cursorStart") LocalDateTime cursorStart,
+                                                                @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE b.ownerId = :ownerId AND b.phase = :phase AND " +
+            "(b.start, b.id) < (:cursorStart, :cursorId) ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findByOwnerIdAndPhaseBeforeCursor(@Param("ownerId") Long ownerId, @Param("phase") Phase phase,
+                                                               @Param("cursorStart") LocalDateTime cursorStart,
+                                                               @Param("cursorId") Long cursorId, Pageable pageable);
+
+    /**
+     * Streams all bookings of an owner's items as response rows with a database cursor; must be consumed inside a
+     * transaction.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(RESPONSE + "WHERE b.ownerId = :ownerId ORDER BY b.start DESC, b.id DESC")
+    Stream<BookingResponseDto> streamByOwnerId(@Param("ownerId") Long ownerId);
+
+    /**
+     * Counts the bookings of an owner's items for every state in a single pass.
+     */
+    @Query(SUMMARY + "WHERE b.ownerId = :ownerId")
+    BookingSummaryDto countByOwnerIdPerState(@Param("ownerId") Long ownerId);
+
+    @Query("SELECT b.item.id FROM Booking b WHERE b.id = :bookingId")
+    Optional<Long> findItemIdById(@Param("bookingId") Long bookingId);
+
+    @Query(value = "SELECT id, itemId, bookerId, startDate, endDate, past FROM (" +
+            "SELECT id, item_id AS itemId, booker_id AS bookerId, start_date AS startDate, end_date AS endDate, " +
+            "start_date < CURRENT_TIMESTAMP AS past, " +
+            "ROW_NUMBER() OVER (PARTITION BY item_id, start_date < CURRENT_TIMESTAMP " +
+            "ORDER BY CASE WHEN start_date < CURRENT_TIMESTAMP THEN start_date END DESC, start_date) AS rn " +
+            "FROM Bookings WHERE item_id IN (:itemIds) AND start_date <> CURRENT_TIMESTAMP AND " +
+            "status = 'APPROVED') ranked WHERE rn = 1", nativeQuery = true)
+    List<ItemBookingView> findLastAndNextBookingsByItemIds(@Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * Sets the status only if the booking is still WAITING. Pending changes are flushed first and the persistence
+     * context is cleared afterwards, so a booking read before stays detached and is never written back over the guard.
+     *
+     * @return the number of updated rows: 0 if the booking has already been decided
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Booking b SET b.status = :status " +
+            "WHERE b.id = :bookingId AND b.status = ru.practicum.shareit.booking.model.Status.WAITING")
+    int updateStatusIfWaiting(@Param("bookingId") Long bookingId, @Param("status") Status status);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item WHERE b.id IN :bookingIds AND b.ownerId = :ownerId")
+    List<Booking> findAllByIdInAndOwnerId(@Param("bookingIds") Collection<Long> bookingIds,
+                                          @Param("ownerId") Long ownerId);
+
+    /**
+     * Set-based variant of {@link #updateStatusIfWaiting(Long, Status)}, clearing the persistence context the same way.
+     *
+     * @return the number of updated rows, which is less than the number of ids if some were already decided
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Booking b SET b.status = :status " +
+            "WHERE b.id IN :bookingIds AND b.status = ru.practicum.shareit.booking.model.Status.WAITING")
+    int updateAllStatusesIfWaiting(@Param("bookingIds") Collection<Long> bookingIds, @Param("status") Status status);
+
+    /**
+     * Finds the bookers and owners of the bookings {@link #startDueBookings} would move.
+     */
+    @Query("SELECT DISTINCT new ru.practicum.shareit.booking.dto.BookingPartiesDto(b.booker.id, b.ownerId) " +
+            "FROM Booking b " +
+            "WHERE b.phase = ru.practicum.shareit.booking.model.Phase.FUTURE AND b.start <= :now AND b.end > :now")
+    List<BookingPartiesDto> findPartiesDueToStart(@Param("now") LocalDateTime now);
+
+    /**
+     * Finds the bookers and owners of the bookings {@link #finishDueBookings} would move.
+     */
+    @Query("SELECT DISTINCT new ru.practicum.shareit.booking.dto.BookingPartiesDto(b.booker.id, b.ownerId) " +
+            "FROM Booking b " +
+            "WHERE b.phase IN (ru.practicum.shareit.booking.model.Phase.FUTURE, " +
+            "ru.practicum.shareit.booking.model.Phase.CURRENT) AND b.end <= :now")
+    List<BookingPartiesDto> findPartiesDueToFinish(@Param("now") LocalDateTime now);
+
+    /**
+     * Finds the bookers and items of the approved bookings {@link #finishDueBookings} would move.
+     */
+    @Query("SELECT DISTINCT new ru.practicum.shareit.booking.dto.FinishedBookingDto(b.booker.id, b.item.id) " +
+            "FROM Booking b " +
+            "WHERE b.phase IN (ru.practicum.shareit.booking.model.Phase.FUTURE, " +
+            "ru.practicum.shareit.booking.model.Phase.CURRENT) AND b.end <= :now " +
+            "AND b.status = ru.practicum.shareit.booking.model.Status.APPROVED")
+    List<FinishedBookingDto> findApprovedDueToFinish(@Param("now") LocalDateTime now);
+
+    /**
+     * Moves FUTURE bookings whose start has come to CURRENT.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Booking b SET b.phase = ru.practicum.shareit.booking.model.Phase.CURRENT " +
+            "WHERE b.phase = ru.practicum.shareit.booking.model.Phase.FUTURE AND b.start <= :now AND b.end > :now")
+    int startDueBookings(@Param("now") LocalDateTime now);
+
+    /**
+     * Moves FUTURE and CURRENT bookings whose end has passed to PAST.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Booking b SET b.phase = ru.practicum.shareit.booking.model.Phase.PAST " +
+            "WHERE b.phase IN (ru.practicum.shareit.booking.model.Phase.FUTURE, " +
+            "ru.practicum.shareit.booking.model.Phase.CURRENT) AND b.end <= :now")
+    int finishDueBookings(@Param("now") LocalDateTime now);
+
+    @Query("SELECT MIN(b.start) FROM Booking b WHERE b.phase = ru.practicum.shareit.booking.model.Phase.FUTURE")
+    LocalDateTime findNextStart();
+
+    @Query("SELECT MIN(b.end) FROM Booking b WHERE b.phase = ru.practicum.shareit.booking.model.Phase.CURRENT")
+    LocalDateTime findNextEnd();
+
+    /**
+     * Finds approved PAST bookings that ended before the retention horizon, oldest first. Waiting and rejected bookings
+     * stay in the table, which the WAITING and REJECTED listings and counts read.
+     */
+    @Query("SELECT b.id FROM Booking b WHERE b.phase = ru.practicum.shareit.booking.model.Phase.PAST AND " +
+            "b.end < :horizon AND b.status = ru.practicum.shareit.booking.model.Status.APPROVED ORDER BY b.end")
+    List<Long> findArchivableIds(@Param("horizon") LocalDateTime horizon, Pageable pageable);
+
+    @Query("SELECT MIN(b.start) FROM Booking b WHERE b.phase = ru.practicum.shareit.booking.model.Phase.PAST AND " +
+            "b.end < :horizon AND b.status = ru.practicum.shareit.booking.model.Status.APPROVED")
+    LocalDateTime findFirstArchivableStart(@Param("horizon") LocalDateTime horizon);
 }
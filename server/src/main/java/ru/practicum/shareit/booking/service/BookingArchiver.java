@@ -0,0 +1,102 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves approved bookings that ended before the retention horizon from the bookings table into the archive, so the
+ * table the listings and writes work on only holds the recent bookings. Waiting and rejected bookings are kept, since
+ * only the ALL and PAST listings and counts read the archive.
+ * <p>
+ * On PostgreSQL the archive is range-partitioned by start date, one partition per year. The partitions are created
+ * here before anything is copied into them, together with the partition for the year after the horizon, so the
+ * archive never receives a row it has no partition for.
+ */
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingArchiver {
+    static final int BATCH_SIZE = 500;
+
+    BookingRepository bookingRepository;
+    ArchivedBookingRepository archivedBookingRepository;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+    Duration retention;
+    boolean partitioned;
+
+    public BookingArchiver(BookingRepository bookingRepository,
+                           ArchivedBookingRepository archivedBookingRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${shareit.booking.archive.retention:P365D}") Duration retention,
+                           @Value("${shareit.booking.archive.partitioned:false}") boolean partitioned) {
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.partitioned = partitioned;
+    }
+
+    @Scheduled(cron = "${shareit.booking.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        int archived = archive(LocalDateTime.now().minus(retention));
+        if (archived > 0) {
+            log.info("Archived {} bookings", archived);
+        }
+    }
+
+    /**
+     * Moves approved PAST bookings that ended before the horizon, one transaction per batch.
+     *
+     * @return the number of archived bookings
+     */
+    public int archive(LocalDateTime horizon) {
+        if (partitioned) {
+            createPartitions(horizon);
+        }
+
+        int archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> moveBatch(horizon));
+            archived += moved;
+        } while (moved == BATCH_SIZE);
+        return archived;
+    }
+
+    private int moveBatch(LocalDateTime horizon) {
+        List<Long> bookingIds = bookingRepository.findArchivableIds(horizon, PageRequest.of(0, BATCH_SIZE));
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+
+        archivedBookingRepository.copyFromBookings(bookingIds);
+        bookingRepository.deleteAllByIdInBatch(bookingIds);
+        return bookingIds.size();
+    }
+
+    private void createPartitions(LocalDateTime horizon) {
+        LocalDateTime firstStart = bookingRepository.findFirstArchivableStart(horizon);
+        int fromYear = firstStart != null ? firstStart.getYear() : horizon.getYear();
+        for (int year = fromYear; year <= horizon.getYear() + 1; year++) {
+            jdbcTemplate.execute(String.format("CREATE TABLE IF NOT EXISTS bookings_archive_%d " +
+                    "PARTITION OF bookings_archive FOR VALUES FROM ('%d-01-01') TO ('%d-01-01')", year, year, year + 1));
+        }
+    }
+}
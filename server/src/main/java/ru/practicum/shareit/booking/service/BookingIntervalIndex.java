@@ -0,0 +1,198 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Per-item index of the [start, end) intervals held by WAITING and APPROVED bookings.
+ * <p>
+ * Intervals of one item never overlap, so they are kept in a map ordered by start and an overlap check is a single
+ * lookup of the interval starting right before the requested end. An item is loaded from the database the first time
+ * it is booked; afterwards reservations and releases keep it up to date. The database constraint stays the final
+ * authority, the index only rejects conflicting requests before they reach it.
+ * <p>
+ * Only items with intervals that have not ended yet are kept: an item is dropped when its last interval is released,
+ * and a periodic sweep drops the items whose intervals have all ended. A dropped item is loaded again on next use.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingIntervalIndex {
+    static final List<Status> BLOCKING_STATUSES = List.of(Status.WAITING, Status.APPROVED);
+
+    BookingRepository bookingRepository;
+    ConcurrentMap<Long, ItemIntervals> items = new ConcurrentHashMap<>();
+
+    /**
+     * Atomically checks that [start, end) is free for the item and holds it until {@link #release} is called.
+     * An interval that does not end after its start is empty: it can not overlap anything and is not held.
+     */
+    public void reserve(Long itemId, LocalDateTime start, LocalDateTime end) {
+        if (isEmpty(start, end)) {
+            return;
+        }
+
+        withIntervals(itemId, intervals -> {
+            intervals.pruneEndedBefore(LocalDateTime.now());
+            if (intervals.overlaps(start, end)) {
+                throw new BookingOverlapException(String.format(
+                        "Item with id %d is already booked between %s and %s", itemId, start, end));
+            }
+            intervals.add(start, end);
+            return null;
+        });
+    }
+
+    public void release(Long itemId, LocalDateTime start) {
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals == null) {
+            return;
+        }
+        synchronized (intervals) {
+            intervals.remove(start);
+            if (intervals.isEmpty()) {
+                drop(itemId, intervals);
+            }
+        }
+    }
+
+    /**
+     * Drops the items whose intervals have all ended.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.interval-index-sweep-ms:60000}")
+    public void evictEnded() {
+        LocalDateTime now = LocalDateTime.now();
+        items.forEach((itemId, intervals) -> {
+            synchronized (intervals) {
+                intervals.pruneEndedBefore(now);
+                if (intervals.loaded && intervals.isEmpty()) {
+                    drop(itemId, intervals);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the gaps between held intervals of the item inside [from, to). Ended bookings are not kept,
+     * so the window never starts earlier than now.
+     */
+    public List<TimeSlotDto> findFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = from.isAfter(now) ? from : now;
+        if (isEmpty(windowStart, to)) {
+            return List.of();
+        }
+
+        return withIntervals(itemId, intervals -> {
+            intervals.pruneEndedBefore(now);
+            return intervals.gaps(windowStart, to);
+        });
+    }
+
+    /**
+     * Runs the action while holding the loaded intervals of the item. Intervals dropped before the lock was taken are
+     * looked up again, so nothing is added to intervals that are no longer in the index.
+     */
+    private <T> T withIntervals(Long itemId, Function<ItemIntervals, T> action) {
+        while (true) {
+            ItemIntervals intervals = items.computeIfAbsent(itemId, id -> new ItemIntervals());
+            synchronized (intervals) {
+                if (intervals.dropped) {
+                    continue;
+                }
+                if (!intervals.loaded) {
+                    bookingRepository.findByItemIdAndStatusInAndEndAfter(itemId, BLOCKING_STATUSES,
+                                    LocalDateTime.now())
+                            .stream()
+                            .filter(booking -> !isEmpty(booking.getStart(), booking.getEnd()))
+                            .forEach(booking -> intervals.add(booking.getStart(), booking.getEnd()));
+                    intervals.loaded = true;
+                }
+                return action.apply(intervals);
+            }
+        }
+    }
+
+    /**
+     * Must be called while holding the intervals.
+     */
+    private void drop(Long itemId, ItemIntervals intervals) {
+        intervals.dropped = true;
+        items.remove(itemId, intervals);
+    }
+
+    private static boolean isEmpty(LocalDateTime start, LocalDateTime end) {
+        return start == null || end == null || !end.isAfter(start);
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static class ItemIntervals {
+        final NavigableMap<LocalDateTime, LocalDateTime> endByStart = new TreeMap<>();
+        boolean loaded;
+        boolean dropped;
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, LocalDateTime> before = endByStart.lowerEntry(end);
+            return before != null && before.getValue().isAfter(start);
+        }
+
+        void add(LocalDateTime start, LocalDateTime end) {
+            endByStart.put(start, end);
+        }
+
+        void remove(LocalDateTime start) {
+            endByStart.remove(start);
+        }
+
+        boolean isEmpty() {
+            return endByStart.isEmpty();
+        }
+
+        List<TimeSlotDto> gaps(LocalDateTime from, LocalDateTime to) {
+            List<TimeSlotDto> gaps = new ArrayList<>();
+            LocalDateTime free = from;
+
+            Map.Entry<LocalDateTime, LocalDateTime> covering = endByStart.floorEntry(from);
+            if (covering != null && covering.getValue().isAfter(free)) {
+                free = covering.getValue();
+            }
+
+            for (Map.Entry<LocalDateTime, LocalDateTime> held : endByStart.subMap(from, false, to, false).entrySet()) {
+                if (held.getKey().isAfter(free)) {
+                    gaps.add(new TimeSlotDto(free, held.getKey()));
+                }
+                if (held.getValue().isAfter(free)) {
+                    free = held.getValue();
+                }
+            }
+
+            if (to.isAfter(free)) {
+                gaps.add(new TimeSlotDto(free, to));
+            }
+            return gaps;
+        }
+
+        void pruneEndedBefore(LocalDateTime now) {
+            while (!endByStart.isEmpty() && !endByStart.firstEntry().getValue().isAfter(now)) {
+                endByStart.pollFirstEntry();
+            }
+        }
+    }
+}
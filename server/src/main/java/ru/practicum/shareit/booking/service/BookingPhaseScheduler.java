@@ -0,0 +1,100 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingPartiesDto;
+import ru.practicum.shareit.booking.dto.FinishedBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Advances the stored {@link Phase} of bookings as time passes.
+ * <p>
+ * The due queue is the bookings table itself, ordered by start for FUTURE bookings and by end for CURRENT ones, so
+ * only the earliest due moment is kept in memory. A tick before that moment does nothing; a tick after it moves every
+ * due booking with two set-based updates and reads the next due moment back. New bookings pull the moment forward
+ * through {@link #schedule}. Right after startup everything that became due while the server was down is caught up.
+ * <p>
+ * The bookers and owners of due bookings are read with the same moment just before the updates, so only their
+ * summaries are evicted. The approved bookings among those that finish let their bookers comment the items, which is
+ * recorded in the {@link CommentEligibilityCache} right away.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingPhaseScheduler {
+    static final LocalDateTime NOTHING_DUE = LocalDateTime.MAX;
+
+    BookingRepository bookingRepository;
+    BookingSummaryCache bookingSummaryCache;
+    CommentEligibilityCache commentEligibilityCache;
+    AtomicReference<LocalDateTime> nextDue = new AtomicReference<>(LocalDateTime.MIN);
+
+    public void schedule(Booking booking) {
+        if (booking.getPhase() == Phase.FUTURE) {
+            scheduleAt(booking.getStart());
+        } else if (booking.getPhase() == Phase.CURRENT) {
+            scheduleAt(booking.getEnd());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        int advanced = advance(LocalDateTime.now());
+        if (advanced > 0) {
+            log.info("Caught up phases of {} bookings after startup", advanced);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.phase-tick-ms:1000}")
+    public void tick() {
+        LocalDateTime now = LocalDateTime.now();
+        if (nextDue.get().isAfter(now)) {
+            return;
+        }
+        advance(now);
+    }
+
+    /**
+     * @return the number of bookings that changed phase
+     */
+    int advance(LocalDateTime now) {
+        // Bookings scheduled while the table is being read lower the moment again
+        nextDue.set(NOTHING_DUE);
+
+        List<BookingPartiesDto> parties = new ArrayList<>(bookingRepository.findPartiesDueToFinish(now));
+        parties.addAll(bookingRepository.findPartiesDueToStart(now));
+        List<FinishedBookingDto> finished = bookingRepository.findApprovedDueToFinish(now);
+        int advanced = bookingRepository.finishDueBookings(now) + bookingRepository.startDueBookings(now);
+        if (advanced > 0) {
+            parties.forEach(party -> bookingSummaryCache.evict(party.getBookerId(), party.getOwnerId()));
+            finished.forEach(booking -> commentEligibilityCache.markEligible(booking.getBookerId(),
+                    booking.getItemId()));
+        }
+
+        LocalDateTime nextStart = bookingRepository.findNextStart();
+        LocalDateTime nextEnd = bookingRepository.findNextEnd();
+        scheduleAt(nextStart);
+        scheduleAt(nextEnd);
+        return advanced;
+    }
+
+    private void scheduleAt(LocalDateTime due) {
+        if (due != null) {
+            nextDue.accumulateAndGet(due, (current, candidate) -> candidate.isBefore(current) ? candidate : current);
+        }
+    }
+}
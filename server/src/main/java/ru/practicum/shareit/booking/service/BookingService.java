@@ -1,28 +1,51 @@
 package ru.practicum.shareit.booking.service;
 
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 public interface BookingService {
     Booking create(Booking booking, Long bookerId);
 
+    List<BookingBatchResultDto> createAll(List<Booking> bookings, Long bookerId);
+
     Booking approve(Long bookingId, Long ownerId, Boolean approved);
 
+    List<Booking> approveAll(Map<Long, Boolean> decisions, Long ownerId);
+
     Booking findByIdAndUserId(Long bookingId, Long userId);
 
     Booking findById(Long bookingId);
 
-    List<Booking> findByUserIdAndState(Long userId, String state, int from, int size);
+    List<BookingResponseDto> findByUserIdAndState(Long userId, String state, int from, int size);
+
+    List<BookingResponseDto> findByOwnerIdAndState(Long ownerId, String state, int from, int size);
+
+    List<BookingResponseDto> findByUserIdAndStateAfterCursor(Long userId, String state, String cursor, int size);
+
+    List<BookingResponseDto> findByOwnerIdAndStateAfterCursor(Long ownerId, String state, String cursor, int size);
+
+    BookingSummaryDto findSummaryByUserId(Long userId);
+
+    BookingSummaryDto findSummaryByOwnerId(Long ownerId);
+
+    void exportByUserId(Long userId, Consumer<BookingResponseDto> consumer);
 
-    List<Booking> findByOwnerIdAndState(Long ownerId, String state, int from, int size);
+    void exportByOwnerId(Long ownerId, Consumer<BookingResponseDto> consumer);
 
-    BookingInfoDto findLastBookingByItemId(Long itemId);
+    void addLastAndNextBookings(List<ItemResponseDto> items);
 
-    BookingInfoDto findNextBookingByItemId(Long itemId);
+    List<TimeSlotDto> findFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to);
 
     Boolean hasUserBookedItem(Long userId, Long itemId);
 }
@@ -3,16 +3,30 @@ package ru.practicum.shareit.booking.service;
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.booking.exception.BookingNotFoundException;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
 import ru.practicum.shareit.booking.exception.BookingWrongStateRequestedException;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.exception.ItemNotAvailableException;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.model.Item;
@@ -22,47 +36,133 @@ import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class BookingServiceImpl implements BookingService {
+    private static final Comparator<BookingResponseDto> NEWEST_FIRST = Comparator
+            .comparing(BookingResponseDto::getStart).thenComparing(BookingResponseDto::getId).reversed();
 
     BookingRepository bookingRepository;
+    ArchivedBookingRepository archivedBookingRepository;
     UserService userService;
     ItemService itemService;
     BookingMapper bookingMapper;
-
-    public BookingServiceImpl(BookingRepository bookingRepository, UserService userService,
-                              @Lazy ItemService itemService, BookingMapper bookingMapper) {
+    BookingIntervalIndex bookingIntervalIndex;
+    CommentEligibilityCache commentEligibilityCache;
+    BookingPhaseScheduler bookingPhaseScheduler;
+    BookingSummaryCache bookingSummaryCache;
+    BookingWriteLanes bookingWriteLanes;
+
+    public BookingServiceImpl(BookingRepository bookingRepository,
+                              ArchivedBookingRepository archivedBookingRepository, UserService userService,
+                              @Lazy ItemService itemService, BookingMapper bookingMapper,
+                              BookingIntervalIndex bookingIntervalIndex,
+                              CommentEligibilityCache commentEligibilityCache,
+                              BookingPhaseScheduler bookingPhaseScheduler,
+                              BookingSummaryCache bookingSummaryCache,
+                              BookingWriteLanes bookingWriteLanes) {
         this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
         this.userService = userService;
         this.itemService = itemService;
         this.bookingMapper = bookingMapper;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.commentEligibilityCache = commentEligibilityCache;
+        this.bookingPhaseScheduler = bookingPhaseScheduler;
+        this.bookingSummaryCache = bookingSummaryCache;
+        this.bookingWriteLanes = bookingWriteLanes;
     }
 
     @Override
     public Booking create(Booking booking, Long bookerId) {
+        return bookingWriteLanes.submit(() -> booking.getItem().getId(), () -> createNow(booking, bookerId));
+    }
+
+    private Booking createNow(Booking booking, Long bookerId) {
         User user = userService.findById(bookerId);
         Item item = itemService.findById(booking.getItem().getId());
 
-        if (Objects.equals(item.getOwner().getId(), user.getId())) {
-            throw new ItemNotFoundException("Owner can't book the item he owns");
+        reserve(booking, item, user);
+        Booking saved;
+        try {
+            saved = bookingRepository.save(booking);
+        } catch (DataIntegrityViolationException e) {
+            bookingIntervalIndex.release(item.getId(), booking.getStart());
+            throw new BookingOverlapException(String.format("Item with id %d is already booked between %s and %s",
+                    item.getId(), booking.getStart(), booking.getEnd()));
+        } catch (RuntimeException e) {
+            bookingIntervalIndex.release(item.getId(), booking.getStart());
+            throw e;
         }
+        releaseIfRolledBack(item.getId(), booking.getStart());
+        bookingPhaseScheduler.schedule(saved);
+        bookingSummaryCache.evict(bookerId, item.getOwner().getId());
+        return saved;
+    }
 
-        if (!item.getAvailable()) {
-            throw new ItemNotAvailableException(String.format("Item with id %d is not available", item.getId()));
-        }
+    @Override
+    public List<BookingBatchResultDto> createAll(List<Booking> bookings, Long bookerId) {
+        User user = userService.findById(bookerId);
+        Map<Long, Item> items = itemService.findAllByIds(bookings.stream()
+                        .map(booking -> booking.getItem().getId())
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
 
-        booking.setItem(item);
-        booking.setBooker(user);
-        booking.setStatus(Status.WAITING);
-        return bookingRepository.save(booking);
+        List<BookingBatchResultDto> results = new ArrayList<>(bookings.size());
+        List<Booking> accepted = new ArrayList<>();
+        try {
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking booking = bookings.get(i);
+                try {
+                    Long itemId = booking.getItem().getId();
+                    Item item = items.get(itemId);
+                    if (item == null) {
+                        throw new ItemNotFoundException(String.format("Item with id %d not found", itemId));
+                    }
+                    reserve(booking, item, user);
+                    accepted.add(booking);
+                    results.add(new BookingBatchResultDto(i, null, null));
+                } catch (ItemNotFoundException | ItemNotAvailableException | BookingOverlapException e) {
+                    results.add(new BookingBatchResultDto(i, null, e.getMessage()));
+                }
+            }
+
+            // One transaction, so the inserts are flushed together as JDBC batches
+            bookingRepository.saveAll(accepted);
+        } catch (DataIntegrityViolationException e) {
+            releaseAll(accepted);
+            throw new BookingOverlapException("Some of the items are already booked for the requested time");
+        } catch (RuntimeException e) {
+            releaseAll(accepted);
+            throw e;
+        }
+        accepted.forEach(booking -> {
+            bookingPhaseScheduler.schedule(booking);
+            bookingSummaryCache.evict(bookerId, booking.getItem().getOwner().getId());
+        });
+
+        results.stream()
+                .filter(result -> result.getError() == null)
+                .forEach(result -> result.setBooking(bookingMapper.toBookingResponse(bookings.get(result.getIndex()))));
+        return results;
     }
 
     @Override
     public Booking approve(Long bookingId, Long ownerId, Boolean approved) {
+        return bookingWriteLanes.submit(() -> findItemId(bookingId), () -> approveNow(bookingId, ownerId, approved));
+    }
+
+    private Booking approveNow(Long bookingId, Long ownerId, Boolean approved) {
         checkUserExists(ownerId);
 
         Booking booking = findById(bookingId);
@@ -70,27 +170,67 @@ public class BookingServiceImpl implements BookingService {
             throw new ItemNotAvailableException("The booking is not in WAITING status");
         }
 
-        Long itemId = booking.getItem().getId();
-        Item item = itemService.findById(itemId);
+        Item item = booking.getItem();
+        if (!item.getOwner().getId().equals(ownerId)) {
+            throw new ItemNotFoundException(String.format("Item with id %d does not belong to user with id %d",
+                    item.getId(), ownerId));
+        }
 
-        Long storedOwnerId = item.getOwner().getId();
-        if (!storedOwnerId.equals(ownerId)) {
-            throw new ItemNotFoundException(String.format("Item with id %d does not belong to user with id %d", itemId,
-                    ownerId));
+        Status status = approved ? Status.APPROVED : Status.REJECTED;
+        if (bookingRepository.updateStatusIfWaiting(bookingId, status) == 0) {
+            // Another decision was committed after the booking was read
+            throw new ItemNotAvailableException("The booking is not in WAITING status");
         }
+        booking.setStatus(status);
+        bookingSummaryCache.evict(booking.getBooker().getId(), ownerId);
 
-        if (approved) {
-            booking.setStatus(Status.APPROVED);
-        } else {
-            booking.setStatus(Status.REJECTED);
+        if (!approved) {
+            releaseAfterCommit(item.getId(), booking.getStart());
         }
 
-        return bookingRepository.save(booking);
+        return booking;
+    }
+
+    @Override
+    @Transactional
+    public List<Booking> approveAll(Map<Long, Boolean> decisions, Long ownerId) {
+        checkUserExists(ownerId);
+
+        List<Booking> bookings = bookingRepository.findAllByIdInAndOwnerId(decisions.keySet(), ownerId);
+        if (bookings.size() != decisions.size()) {
+            throw new ItemNotFoundException(String.format("Some of the bookings %s are not found for owner with id %d",
+                    decisions.keySet(), ownerId));
+        }
+        if (bookings.stream().anyMatch(booking -> booking.getStatus() != Status.WAITING)) {
+            throw new ItemNotAvailableException("Some of the bookings are not in WAITING status");
+        }
+
+        Map<Boolean, List<Long>> idsByDecision = decisions.entrySet().stream()
+                .collect(Collectors.partitioningBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        updateAllStatuses(idsByDecision.get(true), Status.APPROVED);
+        updateAllStatuses(idsByDecision.get(false), Status.REJECTED);
+
+        bookings.forEach(booking -> {
+            bookingSummaryCache.evict(booking.getBooker().getId(), ownerId);
+            if (decisions.get(booking.getId())) {
+                booking.setStatus(Status.APPROVED);
+            } else {
+                booking.setStatus(Status.REJECTED);
+                releaseAfterCommit(booking.getItem().getId(), booking.getStart());
+            }
+        });
+        return bookings;
     }
 
     @Override
     public Booking findByIdAndUserId(Long bookingId, Long userId) {
-        Booking booking = findById(bookingId);
+        Booking booking = bookingRepository.findById(bookingId)
+                .or(() -> archivedBookingRepository.findWithItemAndBookerById(bookingId)
+                        .map(bookingMapper::fromArchived))
+                .orElseThrow(() -> new BookingNotFoundException(
+                        String.format("Booking with id %d not found", bookingId))
+                );
 
         if (booking.getBooker().getId().equals(userId)) {
             // Returns booking only for the booker ...
@@ -115,30 +255,38 @@ public class BookingServiceImpl implements BookingService {
                 );
     }
 
+    private Long findItemId(Long bookingId) {
+        return bookingRepository.findItemIdById(bookingId)
+                .orElseThrow(() -> new BookingNotFoundException(
+                        String.format("Booking with id %d not found", bookingId))
+                );
+    }
+
     @Override
-    public List<Booking> findByUserIdAndState(Long userId, String state, int from, int size) {
+    public List<BookingResponseDto> findByUserIdAndState(Long userId, String state, int from, int size) {
         checkUserExists(userId);
 
         State requestBookingState = checkState(state);
         int page = from / size;
         PageRequest p = PageRequest.of(page, size);
-        List<Booking> result = new ArrayList<>();
+        List<BookingResponseDto> result = new ArrayList<>();
         switch (requestBookingState) {
             case ALL:
-                result = bookingRepository.findByBookerIdOrderByStartDesc(userId, p);
+                result = findWithArchived(pageable -> bookingRepository.findByBookerIdOrderByStartDesc(userId,
+                        pageable), pageable -> archivedBookingRepository.findByBookerId(userId, pageable), p);
                 break;
 
             case FUTURE:
-                result = bookingRepository.findByBookerIdAndStartIsAfterOrderByStartDesc(userId, LocalDateTime.now(), p);
+                result = bookingRepository.findByBookerIdAndPhaseOrderByStartDesc(userId, Phase.FUTURE, p);
                 break;
 
             case PAST:
-                result = bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(userId, LocalDateTime.now(), p);
+                result = findWithArchived(pageable -> bookingRepository.findByBookerIdAndPhaseOrderByStartDesc(userId,
+                        Phase.PAST, pageable), pageable -> archivedBookingRepository.findByBookerId(userId, pageable), p);
                 break;
 
             case CURRENT:
-                result = bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByIdAsc(userId, LocalDateTime.now(),
-                        LocalDateTime.now(), p);
+                result = bookingRepository.findByBookerIdAndPhaseOrderByIdAsc(userId, Phase.CURRENT, p);
                 break;
 
             case WAITING:
@@ -152,35 +300,118 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<Booking> findByOwnerIdAndState(Long ownerId, String state, int from, int size) {
-        User owner = userService.findById(ownerId);
+    public List<BookingResponseDto> findByOwnerIdAndState(Long ownerId, String state, int from, int size) {
+        checkUserExists(ownerId);
 
         State requestBookingState = checkState(state);
         int page = from / size;
         PageRequest p = PageRequest.of(page, size);
-        List<Booking> result = new ArrayList<>();
+        List<BookingResponseDto> result = new ArrayList<>();
         switch (requestBookingState) {
             case ALL:
-                result = bookingRepository.findByOwnerId(owner, p);
+                result = findWithArchived(pageable -> bookingRepository.findByOwnerId(ownerId, pageable),
+                        pageable -> archivedBookingRepository.findByOwnerId(ownerId, pageable), p);
                 break;
 
             case FUTURE:
-                result = bookingRepository.findByOwnerIdInFuture(owner, p);
+            case CURRENT:
+                result = bookingRepository.findByOwnerIdAndPhaseOrderByStartDesc(ownerId, Phase.valueOf(state), p);
                 break;
 
             case PAST:
-                result = bookingRepository.findByOwnerIdInPast(owner, p);
+                result = findWithArchived(pageable -> bookingRepository.findByOwnerIdAndPhaseOrderByStartDesc(ownerId,
+                        Phase.PAST, pageable), pageable -> archivedBookingRepository.findByOwnerId(ownerId, pageable), p);
+                break;
+
+            case WAITING:
+            case REJECTED:
+                Status bookingStatus = Status.valueOf(state);
+
+                result = bookingRepository.findByOwnerIdAndStatus(ownerId, bookingStatus, p);
+                break;
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<BookingResponseDto> findByUserIdAndStateAfterCursor(Long userId, String state, String cursor, int size) {
+        checkUserExists(userId);
+
+        State requestBookingState = checkState(state);
+        BookingCursor after = BookingCursor.decode(cursor);
+        PageRequest p = PageRequest.of(0, size);
+        List<BookingResponseDto> result = new ArrayList<>();
+        switch (requestBookingState) {
+            case ALL:
+                result = findWithArchived(pageable -> bookingRepository.findByBookerIdBeforeCursor(userId,
+                                after.getStart(), after.getId(), pageable),
+                        pageable -> archivedBookingRepository.findByBookerIdBeforeCursor(userId, after.getStart(),
+                                after.getId(), pageable), p);
+                break;
+
+            case FUTURE:
+                result = bookingRepository.findByBookerIdAndPhaseBeforeCursor(userId, Phase.FUTURE,
+                        after.getStart(), after.getId(), p);
+                break;
+
+            case PAST:
+                result = findWithArchived(pageable -> bookingRepository.findByBookerIdAndPhaseBeforeCursor(userId, Phase.PAST,
+                                after.getStart(), after.getId(), pageable),
+                        pageable -> archivedBookingRepository.findByBookerIdBeforeCursor(userId, after.getStart(),
+                                after.getId(), pageable), p);
+                break;
+
+            case CURRENT:
+                result = bookingRepository.findByBookerIdAndPhaseAfterCursor(userId, Phase.CURRENT, after.getId(), p);
+                break;
+
+            case WAITING:
+            case REJECTED:
+                Status bookingStatus = Status.valueOf(state);
+                result = bookingRepository.findByBookerIdAndStatusBeforeCursor(userId, bookingStatus,
+                        after.getStart(), after.getId(), p);
+                break;
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<BookingResponseDto> findByOwnerIdAndStateAfterCursor(Long ownerId, String state, String cursor, int size) {
+        checkUserExists(ownerId);
+
+        State requestBookingState = checkState(state);
+        BookingCursor after = BookingCursor.decode(cursor);
+        PageRequest p = PageRequest.of(0, size);
+        List<BookingResponseDto> result = new ArrayList<>();
+        switch (requestBookingState) {
+            case ALL:
+                result = findWithArchived(pageable -> bookingRepository.findByOwnerIdBeforeCursor(ownerId,
+                                after.getStart(), after.getId(), pageable),
+                        pageable -> archivedBookingRepository.findByOwnerIdBeforeCursor(ownerId, after.getStart(),
+                                after.getId(), pageable), p);
                 break;
 
+            case FUTURE:
             case CURRENT:
-                result = bookingRepository.findByOwnerIdInCurrent(owner, p);
+                result = bookingRepository.findByOwnerIdAndPhaseBeforeCursor(ownerId, Phase.valueOf(state),
+                        after.getStart(), after.getId(), p);
+                break;
+
+            case PAST:
+                result = findWithArchived(pageable -> bookingRepository.findByOwnerIdAndPhaseBeforeCursor(ownerId, Phase.PAST,
+                                after.getStart(), after.getId(), pageable),
+                        pageable -> archivedBookingRepository.findByOwnerIdBeforeCursor(ownerId, after.getStart(),
+                                after.getId(), pageable), p);
                 break;
 
             case WAITING:
             case REJECTED:
                 Status bookingStatus = Status.valueOf(state);
 
-                result = bookingRepository.findByOwnerIdAndStatus(owner, bookingStatus, p);
+                result = bookingRepository.findByOwnerIdAndStatusBeforeCursor(ownerId, bookingStatus,
+                        after.getStart(), after.getId(), p);
                 break;
         }
 
@@ -188,18 +419,198 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public BookingInfoDto findLastBookingByItemId(Long itemId) {
-        return bookingMapper.toBookingInfo(bookingRepository.findLastBookingByItemId(itemId));
+    public BookingSummaryDto findSummaryByUserId(Long userId) {
+        checkUserExists(userId);
+
+        return bookingSummaryCache.findByBookerId(userId, () -> withArchived(
+                bookingRepository.countByBookerIdPerState(userId),
+                archivedBookingRepository.countByBookerIdPerState(userId)));
+    }
+
+    @Override
+    public BookingSummaryDto findSummaryByOwnerId(Long ownerId) {
+        checkUserExists(ownerId);
+
+        return bookingSummaryCache.findByOwnerId(ownerId, () -> withArchived(
+                bookingRepository.countByOwnerIdPerState(ownerId),
+                archivedBookingRepository.countByOwnerIdPerState(ownerId)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportByUserId(Long userId, Consumer<BookingResponseDto> consumer) {
+        checkUserExists(userId);
+
+        try (Stream<BookingResponseDto> live = bookingRepository.streamByBookerId(userId);
+             Stream<BookingResponseDto> archived = archivedBookingRepository.streamByBookerId(userId)) {
+            mergeNewestFirst(live.iterator(), archived.iterator(), consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportByOwnerId(Long ownerId, Consumer<BookingResponseDto> consumer) {
+        checkUserExists(ownerId);
+
+        try (Stream<BookingResponseDto> live = bookingRepository.streamByOwnerId(ownerId);
+             Stream<BookingResponseDto> archived = archivedBookingRepository.streamByOwnerId(ownerId)) {
+            mergeNewestFirst(live.iterator(), archived.iterator(), consumer);
+        }
+    }
+
+    @Override
+    public void addLastAndNextBookings(List<ItemResponseDto> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        Map<Long, ItemResponseDto> itemsById = items.stream()
+                .collect(Collectors.toMap(ItemResponseDto::getId, Function.identity()));
+
+        for (ItemBookingView booking : bookingRepository.findLastAndNextBookingsByItemIds(itemsById.keySet())) {
+            ItemResponseDto item = itemsById.get(booking.getItemId());
+            if (booking.isPast()) {
+                item.setLastBooking(bookingMapper.toItemBookingInfo(booking));
+            } else {
+                item.setNextBooking(bookingMapper.toItemBookingInfo(booking));
+            }
+        }
     }
 
     @Override
-    public BookingInfoDto findNextBookingByItemId(Long itemId) {
-        return bookingMapper.toBookingInfo(bookingRepository.findNextBookingByItemId(itemId));
+    public List<TimeSlotDto> findFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return bookingIntervalIndex.findFreeSlots(itemId, from, to);
     }
 
     public Boolean hasUserBookedItem(Long userId, Long itemId) {
-        return bookingRepository.findByBookerIdAndItemIdAndEndIsBeforeAndStatusOrderByStartDesc(userId, itemId, LocalDateTime.now(),
-                Status.APPROVED).size() > 0;
+        if (commentEligibilityCache.isEligible(userId, itemId)) {
+            return true;
+        }
+
+        boolean booked = bookingRepository.existsByBookerIdAndItemIdAndEndIsBeforeAndStatus(userId, itemId,
+                LocalDateTime.now(), Status.APPROVED)
+                || archivedBookingRepository.existsByBookerIdAndItemIdAndStatus(userId, itemId, Status.APPROVED);
+        if (booked) {
+            commentEligibilityCache.markEligible(userId, itemId);
+        }
+        return booked;
+    }
+
+    /**
+     * Checks that the user may book the item and holds the booking interval in the index until it is stored.
+     */
+    private void reserve(Booking booking, Item item, User booker) {
+        if (Objects.equals(item.getOwner().getId(), booker.getId())) {
+            throw new ItemNotFoundException("Owner can't book the item he owns");
+        }
+
+        if (!item.getAvailable()) {
+            throw new ItemNotAvailableException(String.format("Item with id %d is not available", item.getId()));
+        }
+
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(Status.WAITING);
+
+        bookingIntervalIndex.reserve(item.getId(), booking.getStart(), booking.getEnd());
+    }
+
+    private void releaseAll(List<Booking> reserved) {
+        reserved.forEach(booking -> bookingIntervalIndex.release(booking.getItem().getId(), booking.getStart()));
+    }
+
+    /**
+     * Frees the interval of a rejected booking once the rejection is committed, so a rollback does not leave it free
+     * in the index while the booking still holds it in the database.
+     */
+    private void releaseAfterCommit(Long itemId, LocalDateTime start) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bookingIntervalIndex.release(itemId, start);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bookingIntervalIndex.release(itemId, start);
+            }
+        });
+    }
+
+    /**
+     * Releases the interval of a saved booking if the transaction it was saved in rolls back afterwards, as a group
+     * commit of the write lanes does when another command in it fails.
+     */
+    private void releaseIfRolledBack(Long itemId, LocalDateTime start) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    bookingIntervalIndex.release(itemId, start);
+                }
+            }
+        });
+    }
+
+    private void updateAllStatuses(List<Long> bookingIds, Status status) {
+        if (bookingIds.isEmpty()) {
+            return;
+        }
+        if (bookingRepository.updateAllStatusesIfWaiting(bookingIds, status) != bookingIds.size()) {
+            // Another decision was committed after the bookings were read
+            throw new ItemNotAvailableException("Some of the bookings are not in WAITING status");
+        }
+    }
+
+    /**
+     * Reads a page of ALL or PAST bookings from the bookings table and the archive, merged newest first. While the
+     * user has nothing archived the page is read directly. Otherwise the rows up to the end of the page are read from
+     * both sources and merged, and the rows before the page are skipped. The cursor listings always pass the first
+     * page, since the cursor seeks both sources to its start.
+     */
+    private List<BookingResponseDto> findWithArchived(Function<Pageable, List<BookingResponseDto>> live,
+                                                      Function<Pageable, List<BookingResponseDto>> archived,
+                                                      PageRequest page) {
+        PageRequest head = PageRequest.of(0, (int) page.getOffset() + page.getPageSize());
+        List<BookingResponseDto> archivedHead = archived.apply(head);
+        if (archivedHead.isEmpty()) {
+            return live.apply(page);
+        }
+
+        List<BookingResponseDto> merged = new ArrayList<>(head.getPageSize());
+        mergeNewestFirst(live.apply(head).iterator(), archivedHead.iterator(), merged::add);
+        return merged.stream()
+                .skip(page.getOffset())
+                .limit(page.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Passes the rows of two sources, each ordered newest first, to the consumer as one sequence ordered newest first.
+     */
+    private static void mergeNewestFirst(Iterator<BookingResponseDto> first, Iterator<BookingResponseDto> second,
+                                         Consumer<BookingResponseDto> consumer) {
+        BookingResponseDto nextFirst = first.hasNext() ? first.next() : null;
+        BookingResponseDto nextSecond = second.hasNext() ? second.next() : null;
+        while (nextFirst != null || nextSecond != null) {
+            if (nextSecond == null || nextFirst != null && NEWEST_FIRST.compare(nextFirst, nextSecond) <= 0) {
+                consumer.accept(nextFirst);
+                nextFirst = first.hasNext() ? first.next() : null;
+            } else {
+                consumer.accept(nextSecond);
+                nextSecond = second.hasNext() ? second.next() : null;
+            }
+        }
+    }
+
+    /**
+     * Adds archived bookings to the states whose listings include the archive: ALL and PAST.
+     */
+    private BookingSummaryDto withArchived(BookingSummaryDto live, BookingSummaryDto archived) {
+        return new BookingSummaryDto(live.getAll() + archived.getAll(), live.getCurrent(),
+                live.getPast() + archived.getPast(), live.getFuture(), live.getWaiting(), live.getRejected());
     }
 
     private void checkUserExists(Long userId) {
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.cache.ReadThroughCache;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the booking counts per state of bookers and owners.
+ * <p>
+ * The entries of a booker and an owner are evicted whenever one of their bookings is created, decided or changes
+ * phase; a summary loaded while its entry is evicted is returned but not cached. Entries also expire after a short
+ * time to live. Meters are tagged {@code cache=booking-summaries}.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingSummaryCache {
+    ReadThroughCache<Key, BookingSummaryDto> summaries;
+
+    public BookingSummaryCache(@Value("${shareit.cache.booking-summaries.max-size:10000}") int maxSize,
+                               @Value("${shareit.cache.booking-summaries.ttl:PT1M}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.summaries = new ReadThroughCache<>("booking-summaries", maxSize, ttl, meterRegistry);
+    }
+
+    public BookingSummaryDto findByBookerId(Long bookerId, Supplier<BookingSummaryDto> loader) {
+        return summaries.get(new Key(bookerId, false), loader);
+    }
+
+    public BookingSummaryDto findByOwnerId(Long ownerId, Supplier<BookingSummaryDto> loader) {
+        return summaries.get(new Key(ownerId, true), loader);
+    }
+
+    public void evict(Long bookerId, Long ownerId) {
+        summaries.evict(new Key(bookerId, false));
+        summaries.evict(new Key(ownerId, true));
+    }
+
+    @lombok.Value
+    static class Key {
+        Long userId;
+        boolean owner;
+    }
+}
@@ -0,0 +1,226 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.exception.BookingWriteUnavailableException;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Optional single-writer mode for booking writes, enabled with {@code shareit.booking.single-writer.enabled}.
+ * <p>
+ * Every item is served by one of a fixed number of lanes, each a single thread with its own queue, so writes for one
+ * item never run concurrently and do not wait on each other's row locks. A lane takes everything queued at once (up to
+ * {@code max-batch} commands) and runs it in one transaction, so a burst of requests for a hot item costs one commit
+ * instead of one per request. If that transaction fails, the commands are run again one transaction each; bookings
+ * saved by the rolled back transaction release their intervals in the index themselves.
+ * <p>
+ * A caller waits at most {@code timeout} for its command. A command that has not started by then is dropped; the
+ * commands still queued at shutdown are failed.
+ * <p>
+ * Only the single-booking endpoints go through the lanes. The batch create and decide endpoints stay outside this
+ * mode: a batch commits all its items in one transaction, which lanes of single items can't give, so a batch still
+ * takes row locks next to the lane of a hot item.
+ * <p>
+ * When the mode is off, commands run on the calling thread as before.
+ */
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingWriteLanes {
+    boolean enabled;
+    int maxBatch;
+    Duration timeout;
+    TransactionTemplate transactionTemplate;
+    List<Lane> lanes = new ArrayList<>();
+    AtomicBoolean closed = new AtomicBoolean();
+
+    public BookingWriteLanes(@Value("${shareit.booking.single-writer.enabled:false}") boolean enabled,
+                             @Value("${shareit.booking.single-writer.lanes:8}") int laneCount,
+                             @Value("${shareit.booking.single-writer.max-batch:64}") int maxBatch,
+                             @Value("${shareit.booking.single-writer.timeout:PT30S}") Duration timeout,
+                             PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.timeout = timeout;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        if (enabled) {
+            for (int i = 0; i < laneCount; i++) {
+                lanes.add(new Lane(i));
+            }
+        }
+    }
+
+    /**
+     * Runs the command in the lane of the item and waits for its result.
+     *
+     * @param itemId resolved only when the mode is on
+     */
+    public <T> T submit(Supplier<Long> itemId, Supplier<T> command) {
+        if (!enabled) {
+            return command.get();
+        }
+
+        Command<T> queued = enqueue(itemId.get(), command);
+        try {
+            return queued.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new BookingWriteUnavailableException(queued.claim()
+                    ? "Booking write was not started in time, try again later"
+                    : "Booking write did not finish in time, check the booking before trying again");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued.claim();
+            throw new BookingWriteUnavailableException("Interrupted while waiting for a booking write");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed.set(true);
+        lanes.forEach(lane -> lane.thread.interrupt());
+        lanes.forEach(Lane::failQueued);
+    }
+
+    private <T> Command<T> enqueue(Long itemId, Supplier<T> command) {
+        if (closed.get()) {
+            throw new BookingWriteUnavailableException("Booking lanes are shut down");
+        }
+        Command<T> queued = new Command<>(command);
+        Lane lane = lanes.get(Math.floorMod(itemId.hashCode(), lanes.size()));
+        lane.queue.add(queued);
+        if (closed.get()) {
+            // Shut down while queueing, after the lane was drained
+            lane.failQueued();
+        }
+        return queued;
+    }
+
+    private void runBatch(List<Command<?>> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(Command::run));
+        } catch (RuntimeException e) {
+            log.warn("Transaction of {} booking commands failed, running them one by one", batch.size(), e);
+            batch.forEach(this::runAlone);
+        }
+        batch.forEach(Command::complete);
+    }
+
+    private void runAlone(Command<?> command) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> command.run());
+        } catch (RuntimeException e) {
+            command.failIfSucceeded(e);
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static class Command<T> {
+        final Supplier<T> action;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicBoolean claimed = new AtomicBoolean();
+        T value;
+        RuntimeException error;
+
+        Command(Supplier<T> action) {
+            this.action = action;
+        }
+
+        /**
+         * Takes the command either to run it or to drop it; only the first caller succeeds.
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        void run() {
+            value = null;
+            error = null;
+            try {
+                value = action.get();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+
+        /**
+         * A command that failed on its own keeps its error: the failed commit is only the consequence of it.
+         */
+        void failIfSucceeded(RuntimeException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+
+        void complete() {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private class Lane {
+        BlockingQueue<Command<?>> queue = new LinkedBlockingQueue<>();
+        Thread thread;
+
+        Lane(int number) {
+            thread = new Thread(this::drain, "booking-lane-" + number);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void failQueued() {
+            List<Command<?>> pending = new ArrayList<>();
+            queue.drainTo(pending);
+            pending.stream()
+                    .filter(Command::claim)
+                    .forEach(command -> command.result.completeExceptionally(
+                            new BookingWriteUnavailableException("Booking lanes are shut down")));
+        }
+
+        private void drain() {
+            List<Command<?>> batch = new ArrayList<>(maxBatch);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, maxBatch - 1);
+                // Commands whose callers gave up are dropped
+                batch.removeIf(command -> !command.claim());
+                try {
+                    if (!batch.isEmpty()) {
+                        runBatch(batch);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Booking lane failed to run {} commands", batch.size(), e);
+                    batch.forEach(command -> command.result.completeExceptionally(e));
+                }
+                batch.clear();
+            }
+        }
+    }
+}
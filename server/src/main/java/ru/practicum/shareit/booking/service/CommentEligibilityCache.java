@@ -0,0 +1,38 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AccessLevel;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.LruMaps;
+
+import java.util.Map;
+
+/**
+ * Remembers the (user, item) pairs that already have a finished approved booking.
+ * <p>
+ * Such a booking can't be undone, so once a user may comment an item this stays true and only positive answers are
+ * cached. Pairs are marked both when a check finds such a booking and when the phase scheduler finishes an approved
+ * booking. The least recently used pairs are evicted when the cache is full.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CommentEligibilityCache {
+    static final int MAX_SIZE = 10_000;
+
+    Map<Key, Boolean> eligible = LruMaps.synchronizedLru(MAX_SIZE);
+
+    public boolean isEligible(Long userId, Long itemId) {
+        return eligible.get(new Key(userId, itemId)) != null;
+    }
+
+    public void markEligible(Long userId, Long itemId) {
+        eligible.put(new Key(userId, itemId), Boolean.TRUE);
+    }
+
+    @Value
+    static class Key {
+        Long userId;
+        Long itemId;
+    }
+}
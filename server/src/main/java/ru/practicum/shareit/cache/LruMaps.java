@@ -0,0 +1,36 @@
+package ru.practicum.shareit.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded maps that evict their least recently used keys, shared by the in-memory caches.
+ */
+public final class LruMaps {
+    private LruMaps() {
+    }
+
+    public static <K, V> Map<K, V> synchronizedLru(int maxSize) {
+        return synchronizedLru(maxSize, () -> {
+        });
+    }
+
+    /**
+     * Returns a synchronized map holding at most {@code maxSize} keys; compound actions must hold its lock.
+     *
+     * @param onEviction called for every key evicted because the map was full
+     */
+    public static <K, V> Map<K, V> synchronizedLru(int maxSize, Runnable onEviction) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > maxSize) {
+                    onEviction.run();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+}
@@ -0,0 +1,172 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded cache that loads missing values on read and forgets them after a time to live.
+ * <p>
+ * Concurrent reads of a missing key wait for a single load instead of each hitting the database. Failed loads and
+ * keys without a value are not cached. A key is evicted on every write to its value, and once more when the writing
+ * transaction completes, so a value read while the write is in flight does not outlive it. The least recently used
+ * keys are evicted when the cache is full.
+ * <p>
+ * Hits, misses and size-based evictions are counted in the {@code cache.gets} and {@code cache.evictions} meters, and
+ * the number of keys in the {@code cache.size} gauge, all tagged with the cache name.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ReadThroughCache<K, V> {
+    Duration ttl;
+    Counter hits;
+    Counter misses;
+    Counter evictions;
+    Map<K, Entry<V>> entries;
+
+    public ReadThroughCache(String name, int maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit")
+                .description("Values found in the cache").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss")
+                .description("Values loaded into the cache").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", name)
+                .description("Values evicted because the cache was full").register(meterRegistry);
+        this.entries = LruMaps.synchronizedLru(maxSize, evictions::increment);
+        Gauge.builder("cache.size", entries, Map::size).tag("cache", name).register(meterRegistry);
+    }
+
+    /**
+     * @param loader loads the value, or throws if there is none
+     */
+    public V get(K key, Supplier<V> loader) {
+        Entry<V> entry;
+        boolean loading = false;
+        synchronized (entries) {
+            entry = findLive(key);
+            if (entry == null) {
+                entry = new Entry<>(new CompletableFuture<>(), Instant.now().plus(ttl));
+                entries.put(key, entry);
+                loading = true;
+            }
+        }
+
+        if (!loading) {
+            hits.increment();
+            return join(entry.getValue());
+        }
+
+        misses.increment();
+        try {
+            V value = loader.get();
+            entry.getValue().complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            entry.getValue().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @param loader loads the values of the keys missing from the cache in one call; keys without a value are skipped
+     * @return the values of the keys that have one
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, Entry<V>> found = new LinkedHashMap<>();
+        Map<K, Entry<V>> loading = new LinkedHashMap<>();
+        synchronized (entries) {
+            for (K key : keys) {
+                Entry<V> entry = findLive(key);
+                if (entry == null) {
+                    entry = new Entry<>(new CompletableFuture<>(), Instant.now().plus(ttl));
+                    entries.put(key, entry);
+                    loading.put(key, entry);
+                }
+                found.put(key, entry);
+            }
+        }
+
+        hits.increment(found.size() - loading.size());
+        misses.increment(loading.size());
+        if (!loading.isEmpty()) {
+            try {
+                Map<K, V> loaded = loader.apply(List.copyOf(loading.keySet()));
+                loading.forEach((key, entry) -> {
+                    V value = loaded.get(key);
+                    if (value == null) {
+                        entries.remove(key, entry);
+                    }
+                    entry.getValue().complete(value);
+                });
+            } catch (RuntimeException e) {
+                loading.forEach((key, entry) -> {
+                    entries.remove(key, entry);
+                    entry.getValue().completeExceptionally(e);
+                });
+                throw e;
+            }
+        }
+
+        Map<K, V> values = new HashMap<>();
+        found.forEach((key, entry) -> {
+            V value = join(entry.getValue());
+            if (value != null) {
+                values.put(key, value);
+            }
+        });
+        return values;
+    }
+
+    public void evict(K key) {
+        entries.remove(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Values read before the change is committed or rolled back may be either version
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    entries.remove(key);
+                }
+            });
+        }
+    }
+
+    private Entry<V> findLive(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.getExpiresAt().isBefore(Instant.now())) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private static <V> V join(CompletableFuture<V> value) {
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    @Value
+    static class Entry<V> {
+        CompletableFuture<V> value;
+        Instant expiresAt;
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.AccessLevel;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.LruMaps;
+import ru.practicum.shareit.idempotency.exception.IdempotencyKeyReusedException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses of requests sent with an {@code Idempotency-Key} header, so that a retried request gets
+ * the stored response instead of being executed again.
+ * <p>
+ * Keys are scoped by user and operation and expire after the configured time to live. A retry that arrives while the
+ * first request is still running waits for its result. Failed requests are forgotten, so they can be retried. The
+ * least recently used keys are evicted when the store is full.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class IdempotencyStore {
+    static final int MAX_SIZE = 10_000;
+
+    Duration ttl;
+    Map<Key, Entry> entries = LruMaps.synchronizedLru(MAX_SIZE);
+
+    public IdempotencyStore(@org.springframework.beans.factory.annotation.Value("${shareit.idempotency.ttl:PT24H}")
+                            Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Runs the action once per key.
+     *
+     * @param idempotencyKey key sent by the client; without one the action is always run
+     * @param request        the request body, which a retry must repeat exactly
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Long userId, String operation, String idempotencyKey, Object request, Supplier<T> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+
+        Key key = new Key(userId, operation, idempotencyKey);
+        Entry entry = new Entry(request, new CompletableFuture<>(), Instant.now().plus(ttl));
+        Entry stored;
+        synchronized (entries) {
+            stored = entries.get(key);
+            if (stored == null || stored.getExpiresAt().isBefore(Instant.now())) {
+                entries.put(key, entry);
+                stored = null;
+            }
+        }
+
+        if (stored != null) {
+            if (!stored.getRequest().equals(request)) {
+                throw new IdempotencyKeyReusedException(String.format(
+                        "Idempotency key %s has already been used for a different request", idempotencyKey));
+            }
+            try {
+                return (T) stored.getResponse().join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            T response = action.get();
+            entry.getResponse().complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.getResponse().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Value
+    static class Key {
+        Long userId;
+        String operation;
+        String idempotencyKey;
+    }
+
+    @Value
+    static class Entry {
+        Object request;
+        CompletableFuture<Object> response;
+        Instant expiresAt;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.idempotency.exception;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+        log.warn(message);
+    }
+}
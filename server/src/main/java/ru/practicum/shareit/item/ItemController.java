@@ -3,7 +3,10 @@ package ru.practicum.shareit.item;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.dto.comment.CommentRequestDto;
@@ -13,6 +16,7 @@ import ru.practicum.shareit.item.mapper.ItemListMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,15 +25,19 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class ItemController {
     static final String USER_ID = "X-Sharer-User-Id";
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
     ItemService itemService;
     ItemMapper itemMapper;
     ItemListMapper itemListMapper;
     CommentMapper commentMapper;
+    IdempotencyStore idempotencyStore;
 
     @PostMapping
     public ItemDto createItem(@RequestBody ItemDto itemDto,
-                              @RequestHeader(USER_ID) Long userId) {
-        return itemMapper.toItemDto(itemService.create(itemDto, userId));
+                              @RequestHeader(USER_ID) Long userId,
+                              @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(userId, "POST /items", idempotencyKey, itemDto,
+                () -> itemMapper.toItemDto(itemService.create(itemDto, userId)));
     }
 
     @PatchMapping("/{itemId}")
@@ -44,6 +52,15 @@ public class ItemController {
         return itemService.findByIdWithBookings(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public List<TimeSlotDto> getAvailability(
+            @PathVariable Long itemId,
+            @RequestHeader(USER_ID) Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.findAvailability(itemId, from, to);
+    }
+
     @GetMapping()
     public List<ItemResponseDto> getAllItems(
             @RequestHeader(USER_ID) Long userId,
@@ -56,9 +73,23 @@ public class ItemController {
     public List<ItemDto> search(
             @RequestParam String text,
             @RequestHeader(USER_ID) Long userId,
+            @RequestParam(required = false, defaultValue = "plain") String mode,
+            @RequestParam(required = false) String near,
+            @RequestParam(required = false, defaultValue = "10") double radius,
             @RequestParam(required = false, defaultValue = "0") int from,
             @RequestParam(required = false, defaultValue = "20") int size) {
-        return itemListMapper.toItemDtoList(itemService.search(text, from, size));
+        if (near != null) {
+            return itemListMapper.toItemDtoList(itemService.searchNear(text, mode, near, radius, from, size));
+        }
+        return itemListMapper.toItemDtoList(itemService.search(text, mode, from, size));
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(
+            @RequestParam String prefix,
+            @RequestHeader(USER_ID) Long userId,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        return itemService.suggest(prefix, limit);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * An item joined with one of its comments and the comment's author, as returned by
+ * {@link ru.practicum.shareit.item.repository.ItemRepository#findDetailById}. The comment columns are null for an item
+ * without comments.
+ */
+public interface ItemDetailView {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+
+    Long getRequestId();
+
+    Long getOwnerId();
+
+    Double getLatitude();
+
+    Double getLongitude();
+
+    Long getCommentId();
+
+    String getCommentText();
+
+    String getAuthorName();
+
+    LocalDateTime getCommentCreated();
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The location and searchable text of an item, as loaded by
+ * {@link ru.practicum.shareit.item.repository.ItemGeoRepository#findAvailableInCells}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemLocationDto {
+    Long id;
+    String name;
+    String description;
+    Double latitude;
+    Double longitude;
+}
@@ -19,4 +19,6 @@ public class ItemResponseDto {
     BookingInfoDto nextBooking;
     List<CommentResponseDto> comments;
     Long requestId;
+    Double latitude;
+    Double longitude;
 }
\ No newline at end of file
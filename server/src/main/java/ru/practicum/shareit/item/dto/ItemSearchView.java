@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.dto;
+
+/**
+ * The searchable text of an item, as loaded by
+ * {@link ru.practicum.shareit.item.repository.ItemRepository#findSearchViewsByIdBetween}.
+ */
+public interface ItemSearchView {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.exception;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class ItemWrongLocationException extends RuntimeException {
+    public ItemWrongLocationException(String message) {
+        super(message);
+        log.warn(message);
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.exception;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class ItemWrongSearchModeException extends RuntimeException {
+    public ItemWrongSearchModeException(String message) {
+        super(message);
+        log.warn(message);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.mapper;
 
 import org.mapstruct.Mapper;
+import ru.practicum.shareit.item.dto.ItemDetailView;
 import ru.practicum.shareit.item.dto.comment.CommentResponseDto;
 import ru.practicum.shareit.item.model.Comment;
 
@@ -9,4 +10,6 @@ import java.util.List;
 @Mapper(componentModel = "spring", uses = CommentMapper.class)
 public interface CommentListMapper {
     List<CommentResponseDto> toCommentResponseList(List<Comment> comments);
+
+    List<CommentResponseDto> toCommentResponseListFromDetails(List<ItemDetailView> rows);
 }
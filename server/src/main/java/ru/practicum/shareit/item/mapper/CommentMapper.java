@@ -4,6 +4,7 @@ import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
+import ru.practicum.shareit.item.dto.ItemDetailView;
 import ru.practicum.shareit.item.dto.comment.CommentRequestDto;
 import ru.practicum.shareit.item.dto.comment.CommentResponseDto;
 import ru.practicum.shareit.item.model.Comment;
@@ -14,6 +15,11 @@ public interface CommentMapper {
     @BeanMapping(unmappedTargetPolicy = ReportingPolicy.IGNORE)
     CommentResponseDto toCommentResponseDto(Comment comment);
 
+    @Mapping(target = "id", source = "commentId")
+    @Mapping(target = "text", source = "commentText")
+    @Mapping(target = "created", source = "commentCreated")
+    CommentResponseDto toCommentResponseDto(ItemDetailView row);
+
     @BeanMapping(unmappedTargetPolicy = ReportingPolicy.IGNORE)
     Comment toComment(CommentRequestDto commentRequestDto);
 }
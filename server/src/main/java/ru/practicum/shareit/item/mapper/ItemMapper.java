@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.mapper;
 
 import org.mapstruct.*;
+import ru.practicum.shareit.item.dto.ItemDetailView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
@@ -20,6 +21,9 @@ public interface ItemMapper {
     @Mapping(target = "requestId", source = "item.request.id")
     ItemResponseDto toItemResponse(Item item);
 
+    @BeanMapping(unmappedTargetPolicy = ReportingPolicy.IGNORE)
+    ItemResponseDto toItemResponse(ItemDetailView item);
+
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE,
             unmappedTargetPolicy = ReportingPolicy.IGNORE)
     void updateItemFromDto(ItemDto dto, @MappingTarget Item entity);
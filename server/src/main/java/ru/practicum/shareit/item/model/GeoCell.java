@@ -0,0 +1,126 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grid cell codes of locations, stored in the indexed {@code items.geo_cell} column.
+ * <p>
+ * Latitude and longitude are each cut into 2^26 steps (about 30 cm) and their bits are interleaved, like a geohash, so
+ * a cell of any coarser level is one contiguous range of codes. A circle is then found by scanning the few ranges of
+ * the cells that {@link #cover} it, and only the items in them are measured with {@link #distanceKm}.
+ */
+public final class GeoCell {
+    static final int BITS = 26;
+    static final int MAX_CELLS_PER_AXIS = 4;
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private GeoCell() {
+    }
+
+    /**
+     * @return the code of the location, or null if it is not set
+     */
+    public static Long of(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return null;
+        }
+        return interleave(step(latitude, -90, 180), step(longitude, -180, 360));
+    }
+
+    /**
+     * Returns sorted, disjoint code ranges covering every location within the radius of the center. Each box of the
+     * circle is covered by at most {@value #MAX_CELLS_PER_AXIS} cells per axis, of the finest level that allows it.
+     */
+    public static List<Range> cover(double latitude, double longitude, double radiusKm) {
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double minLat = Math.max(-90, latitude - latDelta);
+        double maxLat = Math.min(90, latitude + latDelta);
+        double cos = Math.min(Math.cos(Math.toRadians(minLat)), Math.cos(Math.toRadians(maxLat)));
+        double lonDelta = maxLat == 90 || minLat == -90 || cos * 180 <= latDelta ? 180 : latDelta / cos;
+
+        List<Range> ranges = new ArrayList<>();
+        if (lonDelta >= 180) {
+            coverBox(minLat, maxLat, -180, 180, ranges);
+        } else if (longitude - lonDelta < -180) {
+            coverBox(minLat, maxLat, -180, longitude + lonDelta, ranges);
+            coverBox(minLat, maxLat, longitude - lonDelta + 360, 180, ranges);
+        } else if (longitude + lonDelta > 180) {
+            coverBox(minLat, maxLat, longitude - lonDelta, 180, ranges);
+            coverBox(minLat, maxLat, -180, longitude + lonDelta - 360, ranges);
+        } else {
+            coverBox(minLat, maxLat, longitude - lonDelta, longitude + lonDelta, ranges);
+        }
+        return merge(ranges);
+    }
+
+    /**
+     * Great-circle distance by the haversine formula.
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLat = Math.toRadians(latitude2 - latitude1);
+        double dLon = Math.toRadians(longitude2 - longitude1);
+        double a = Math.pow(Math.sin(dLat / 2), 2) + Math.cos(Math.toRadians(latitude1))
+                * Math.cos(Math.toRadians(latitude2)) * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static void coverBox(double minLat, double maxLat, double minLon, double maxLon, List<Range> ranges) {
+        long minLatStep = step(minLat, -90, 180);
+        long maxLatStep = step(maxLat, -90, 180);
+        long minLonStep = step(minLon, -180, 360);
+        long maxLonStep = step(maxLon, -180, 360);
+
+        int shift = 0;
+        while (shift < BITS && ((maxLatStep >> shift) - (minLatStep >> shift) >= MAX_CELLS_PER_AXIS
+                || (maxLonStep >> shift) - (minLonStep >> shift) >= MAX_CELLS_PER_AXIS)) {
+            shift++;
+        }
+
+        for (long lat = minLatStep >> shift; lat <= maxLatStep >> shift; lat++) {
+            for (long lon = minLonStep >> shift; lon <= maxLonStep >> shift; lon++) {
+                long from = interleave(lat, lon) << 2 * shift;
+                ranges.add(new Range(from, from + (1L << 2 * shift) - 1));
+            }
+        }
+    }
+
+    private static List<Range> merge(List<Range> ranges) {
+        ranges.sort((a, b) -> Long.compare(a.getFrom(), b.getFrom()));
+        List<Range> merged = new ArrayList<>();
+        for (Range range : ranges) {
+            Range last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range.getFrom() <= last.getTo() + 1) {
+                merged.set(merged.size() - 1, new Range(last.getFrom(), Math.max(last.getTo(), range.getTo())));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    private static long step(double degrees, double min, double span) {
+        long step = (long) Math.floor((degrees - min) / span * (1L << BITS));
+        return Math.max(0, Math.min((1L << BITS) - 1, step));
+    }
+
+    private static long interleave(long latitudeStep, long longitudeStep) {
+        long code = 0;
+        for (int bit = BITS - 1; bit >= 0; bit--) {
+            code = code << 2 | (latitudeStep >> bit & 1) << 1 | longitudeStep >> bit & 1;
+        }
+        return code;
+    }
+
+    /**
+     * Inclusive range of cell codes.
+     */
+    @Value
+    public static class Range {
+        long from;
+        long to;
+    }
+}
@@ -27,4 +27,17 @@ public class Item {
     User owner;
     @ManyToOne(targetEntity = ItemRequest.class, fetch = FetchType.EAGER)
     ItemRequest request;
+    Double latitude;
+    Double longitude;
+    /**
+     * {@link GeoCell} code of the location, so searches near a point scan cell ranges instead of every row.
+     */
+    @Column(name = "geo_cell")
+    Long geoCell;
+
+    @PrePersist
+    @PreUpdate
+    void updateGeoCell() {
+        geoCell = GeoCell.of(latitude, longitude);
+    }
 }
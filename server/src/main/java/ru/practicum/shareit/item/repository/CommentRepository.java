@@ -1,10 +1,14 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findAllByItem_Id(Long itemId);
+    @Query("SELECT c FROM Comment c LEFT JOIN FETCH c.author WHERE c.item.id IN :itemIds")
+    List<Comment> findAllByItem_IdIn(@Param("itemIds") Collection<Long> itemIds);
 }
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.dto.ItemLocationDto;
+import ru.practicum.shareit.item.model.GeoCell;
+
+import java.util.List;
+
+public interface ItemGeoRepository {
+
+    /**
+     * Finds the available items whose {@link GeoCell} code falls in any of the disjoint ranges, with one index range
+     * scan per range. Only the columns needed to measure and match the items are read.
+     */
+    List<ItemLocationDto> findAvailableInCells(List<GeoCell.Range> ranges);
+}
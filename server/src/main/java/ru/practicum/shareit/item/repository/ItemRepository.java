@@ -3,13 +3,16 @@ package ru.practicum.shareit.item.repository;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemDetailView;
+import ru.practicum.shareit.item.dto.ItemSearchView;
 import ru.practicum.shareit.item.model.Item;
 
 import java.util.List;
 
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemGeoRepository {
 
     List<Item> findAllByOwnerIdOrderById(Long ownerId, Pageable pageable);
 
@@ -18,6 +21,33 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             " or upper(i.description) like upper(concat('%', ?1, '%')))")
     List<Item> search(String text, Pageable pageable);
 
-    List<Item> findAllByRequestId(Long requestId);
+    /**
+     * Matches the tsquery against the indexed search vector of name and description, best matches first. PostgreSQL
+     * only.
+     */
+    @Query(value = "SELECT i.* FROM items i, to_tsquery('simple', :query) q " +
+            "WHERE i.available AND i.search_vector @@ q " +
+            "ORDER BY ts_rank(i.search_vector, q) DESC, i.id", nativeQuery = true)
+    List<Item> searchFullText(@Param("query") String query, Pageable pageable);
+
+    @Query("SELECT i FROM Item i WHERE i.request.id = :requestId")
+    List<Item> findAllByRequestId(@Param("requestId") Long requestId);
+
+    @Query("SELECT i.id AS id, i.name AS name, i.description AS description FROM Item i " +
+            "WHERE i.available = true AND i.id BETWEEN :fromId AND :toId")
+    List<ItemSearchView> findSearchViewsByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * Loads an item with its comments and their authors in one statement, one row per comment, oldest first.
+     */
+    @Query(value = "SELECT i.id AS id, i.name AS name, i.description AS description, i.available AS available, " +
+            "i.request_id AS requestId, i.owner_id AS ownerId, i.latitude AS latitude, i.longitude AS longitude, " +
+            "c.id AS commentId, c.text AS commentText, u.name AS authorName, c.created AS commentCreated " +
+            "FROM items i LEFT JOIN comments c ON c.item_id = i.id LEFT JOIN users u ON u.id = c.author_id " +
+            "WHERE i.id = :itemId ORDER BY c.id", nativeQuery = true)
+    List<ItemDetailView> findDetailById(@Param("itemId") Long itemId);
+
+    @Query("SELECT MAX(i.id) FROM Item i")
+    Long findMaxId();
 
 }
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.item.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.ReadThroughCache;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps items by id for {@link ItemService#findById} and for hydrating cached search pages.
+ * <p>
+ * Cached items are shared between requests and must not be modified; their owner is a proxy that only knows its id.
+ * An item is evicted whenever it is updated. Meters are tagged {@code cache=items}.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ItemCache {
+    ReadThroughCache<Long, Item> items;
+
+    public ItemCache(@Value("${shareit.cache.items.max-size:10000}") int maxSize,
+                     @Value("${shareit.cache.items.ttl:PT10M}") Duration ttl,
+                     MeterRegistry meterRegistry) {
+        this.items = new ReadThroughCache<>("items", maxSize, ttl, meterRegistry);
+    }
+
+    /**
+     * @param loader loads the item, or throws if there is none
+     */
+    public Item findById(Long itemId, Supplier<Item> loader) {
+        return items.get(itemId, loader);
+    }
+
+    /**
+     * @return the items that still exist, in the order of the ids; the missing ones are loaded in one call
+     */
+    public List<Item> findAllById(List<Long> itemIds, Function<List<Long>, List<Item>> loader) {
+        Map<Long, Item> found = items.getAll(itemIds, missingIds -> loader.apply(missingIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity())));
+        return itemIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    public void evict(Long itemId) {
+        items.evict(itemId);
+    }
+}
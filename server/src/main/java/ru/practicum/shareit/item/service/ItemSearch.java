@@ -0,0 +1,196 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemLocationDto;
+import ru.practicum.shareit.item.model.GeoCell;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.SearchMode;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Searches available items by name and description with the engine set in {@code shareit.item.search.engine}:
+ * <ul>
+ *     <li>{@code SUBSTRING} matches the text as a substring, which needs a scan of the items table but runs on any
+ *     database;</li>
+ *     <li>{@code FULL_TEXT} (PostgreSQL) matches every word of the text as a word prefix through the GIN-indexed search
+ *     vector and orders the results by relevance;</li>
+ *     <li>{@code INDEX} answers the substring search from the in-memory {@link ItemSearchIndex} and only loads the
+ *     found page from the database.</li>
+ * </ul>
+ * Ranked search always runs on the in-memory index, so the index is kept whatever the engine. Name suggestions come
+ * from the {@link ItemSuggestIndex}. Searches near a point go through the {@link GeoCell} index of locations instead.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ItemSearch {
+    private static final String NOT_A_WORD = "[^\\p{L}\\p{N}]+";
+
+    ItemRepository itemRepository;
+    ItemSearchIndex itemSearchIndex;
+    ItemSuggestIndex itemSuggestIndex;
+    Engine engine;
+    int maxEdits;
+
+    public ItemSearch(ItemRepository itemRepository,
+                      ItemSearchIndex itemSearchIndex,
+                      ItemSuggestIndex itemSuggestIndex,
+                      @Value("${shareit.item.search.engine:SUBSTRING}") Engine engine,
+                      @Value("${shareit.item.search.ranked.max-edits:1}") int maxEdits) {
+        this.itemRepository = itemRepository;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemSuggestIndex = itemSuggestIndex;
+        this.engine = engine;
+        this.maxEdits = maxEdits;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        itemSearchIndex.rebuild();
+        itemSuggestIndex.rebuild();
+    }
+
+    /**
+     * Must be called with every saved item, so the in-memory indexes follow name, description and availability
+     * changes.
+     */
+    public void indexed(Item item) {
+        itemSearchIndex.put(item);
+        itemSuggestIndex.put(item);
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        return itemSuggestIndex.suggest(prefix, limit);
+    }
+
+    public List<Item> search(String text, Pageable pageable) {
+        switch (engine) {
+            case FULL_TEXT:
+                String query = toPrefixQuery(text);
+                return query.isEmpty() ? Collections.emptyList() : itemRepository.searchFullText(query, pageable);
+            case INDEX:
+                Optional<List<Long>> ids = itemSearchIndex.search(text, pageable.getOffset(), pageable.getPageSize());
+                if (ids.isPresent()) {
+                    return findAllInOrder(ids.get());
+                }
+                return itemRepository.search(text, pageable);
+            default:
+                return itemRepository.search(text, pageable);
+        }
+    }
+
+    /**
+     * Orders the matches by relevance and tolerates up to {@code shareit.item.search.ranked.max-edits} typos per word.
+     * Until the index is built the plain substring search answers.
+     */
+    public List<Item> searchRanked(String text, Pageable pageable) {
+        return itemSearchIndex.searchRanked(text, pageable.getOffset(), pageable.getPageSize(), maxEdits)
+                .map(this::findAllInOrder)
+                .orElseGet(() -> itemRepository.search(text, pageable));
+    }
+
+    /**
+     * Finds the available items within the radius that match the text, nearest first; a blank text matches them all.
+     * Only the locations and texts of the items in the cells covering the circle are loaded and measured, and the text
+     * is matched on them in memory: as a substring in plain mode, and word by word with the allowed typos in ranked mode.
+     * Only the items of the requested page are then loaded in full.
+     */
+    public List<Item> searchNear(String text, SearchMode mode, double latitude, double longitude, double radiusKm,
+                                 Pageable pageable) {
+        String lowerCaseText = text.isBlank() ? null : text.toLowerCase(Locale.ROOT);
+        Map<Long, Double> distances = new HashMap<>();
+        for (ItemLocationDto item : itemRepository.findAvailableInCells(GeoCell.cover(latitude, longitude, radiusKm))) {
+            double distance = GeoCell.distanceKm(latitude, longitude, item.getLatitude(), item.getLongitude());
+            if (distance <= radiusKm && (lowerCaseText == null
+                    || matches(lowerCaseText, mode, item.getName(), item.getDescription()))) {
+                distances.put(item.getId(), distance);
+            }
+        }
+        List<Long> page = distances.keySet().stream()
+                .sorted(Comparator.comparing((Long id) -> distances.get(id)).thenComparing(Comparator.naturalOrder()))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+        return findAllInOrder(page);
+    }
+
+    /**
+     * @return the text in the form the results depend on, so that texts with the same results share one form
+     */
+    public String normalize(String text, SearchMode mode) {
+        if (mode == SearchMode.PLAIN && engine != Engine.FULL_TEXT) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+        return String.join(" ", TextSimilarity.words(text));
+    }
+
+    /**
+     * Tells whether an available item with the given name and description may be found by the normalized text. May
+     * answer yes for an item that is not found, but never no for an item that is.
+     */
+    public boolean couldMatch(String normalizedText, SearchMode mode, String name, String description) {
+        String itemText = (name + ' ' + description).toLowerCase(Locale.ROOT);
+        List<String> words = TextSimilarity.words(normalizedText);
+        if (mode == SearchMode.RANKED) {
+            List<String> itemWords = TextSimilarity.words(itemText);
+            return words.stream().allMatch(word -> TextSimilarity.matchesAny(word, itemWords,
+                    TextSimilarity.allowedEdits(word, maxEdits)));
+        }
+        if (engine == Engine.FULL_TEXT) {
+            return words.stream().allMatch(itemText::contains);
+        }
+        // LIKE wildcards in the text match more than the plain substring
+        return normalizedText.contains("%") || normalizedText.contains("_")
+                || name.toLowerCase(Locale.ROOT).contains(normalizedText)
+                || description.toLowerCase(Locale.ROOT).contains(normalizedText);
+    }
+
+    private boolean matches(String lowerCaseText, SearchMode mode, String name, String description) {
+        if (mode == SearchMode.RANKED) {
+            return couldMatch(String.join(" ", TextSimilarity.words(lowerCaseText)), mode, name, description);
+        }
+        return name.toLowerCase(Locale.ROOT).contains(lowerCaseText)
+                || description.toLowerCase(Locale.ROOT).contains(lowerCaseText);
+    }
+
+    private List<Item> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Item> items = itemRepository.findAllById(ids);
+        items.sort(Comparator.comparingInt(item -> ids.indexOf(item.getId())));
+        return items;
+    }
+
+    /**
+     * Turns free text into a tsquery that requires every word as a prefix, e.g. {@code "red drill"} into
+     * {@code "red:* & drill:*"}. Everything but letters and digits is dropped, so the text cannot inject operators.
+     */
+    private static String toPrefixQuery(String text) {
+        return Arrays.stream(text.split(NOT_A_WORD))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    public enum Engine {
+        SUBSTRING,
+        FULL_TEXT,
+        INDEX
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.item.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.cache.LruMaps;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.SearchMode;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the ids of the items found per search text and page, and loads the items themselves from the
+ * {@link ItemCache}.
+ * <p>
+ * Texts are cached in the form {@link ItemSearch#normalize} gives them. When an item is created, or its name,
+ * description or availability changes, only the pages of the texts that it matched before or matches after the change
+ * are evicted (once more after commit when that happens in a transaction). Every eviction bumps a generation, so a
+ * page found concurrently with an eviction is returned but not cached. The least recently used pages are evicted when
+ * the cache is full.
+ * <p>
+ * Hits and misses are counted in the {@code cache.gets} meter, tagged {@code cache=itemSearch}.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ItemSearchCache {
+    static final int MAX_SIZE = 1_000;
+    static final String NAME = "itemSearch";
+
+    ItemSearch itemSearch;
+    ItemCache itemCache;
+    ItemRepository itemRepository;
+    Counter hits;
+    Counter misses;
+    AtomicLong generation = new AtomicLong();
+    Map<Key, List<Long>> pages = LruMaps.synchronizedLru(MAX_SIZE);
+
+    public ItemSearchCache(ItemSearch itemSearch, ItemCache itemCache, ItemRepository itemRepository,
+                           MeterRegistry meterRegistry) {
+        this.itemSearch = itemSearch;
+        this.itemCache = itemCache;
+        this.itemRepository = itemRepository;
+        this.hits = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "hit")
+                .description("Search pages found in the cache").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "miss")
+                .description("Search pages not found in the cache").register(meterRegistry);
+        Gauge.builder("cache.size", pages, Map::size).tag("cache", NAME).register(meterRegistry);
+    }
+
+    public List<Item> find(String text, SearchMode mode, Pageable pageable, Supplier<List<Item>> loader) {
+        Key key = new Key(itemSearch.normalize(text, mode), mode, pageable.getPageNumber(), pageable.getPageSize());
+        List<Long> itemIds = pages.get(key);
+        if (itemIds != null) {
+            hits.increment();
+            return itemCache.findAllById(itemIds, itemRepository::findAllById);
+        }
+
+        misses.increment();
+        long loadedAt = generation.get();
+        List<Item> items = loader.get();
+        synchronized (pages) {
+            if (generation.get() == loadedAt) {
+                pages.put(key, items.stream().map(Item::getId).collect(Collectors.toList()));
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Evicts the pages the item could be on, given its searchable state before or after a change.
+     */
+    public void evict(Searchable item) {
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            return;
+        }
+
+        remove(item);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Pages found before the change is committed would still be the old ones
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(item);
+                }
+            });
+        }
+    }
+
+    private void remove(Searchable item) {
+        generation.incrementAndGet();
+        synchronized (pages) {
+            pages.keySet().removeIf(key -> itemSearch.couldMatch(key.getText(), key.getMode(), item.getName(),
+                    item.getDescription()));
+        }
+    }
+
+    /**
+     * The fields of an item that decide which searches find it.
+     */
+    @Value
+    public static class Searchable {
+        String name;
+        String description;
+        Boolean available;
+
+        public static Searchable of(Item item) {
+            return new Searchable(item.getName(), item.getDescription(), item.getAvailable());
+        }
+    }
+
+    @Value
+    static class Key {
+        String text;
+        SearchMode mode;
+        int page;
+        int size;
+    }
+}
@@ -0,0 +1,337 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.AccessLevel;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemSearchView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * In-memory substring index over the name and description of available items.
+ * <p>
+ * Every trigram of the lower-cased text points to a sorted {@code long[]} of item ids. A search intersects the
+ * postings of the trigrams of the query, starting from the shortest, and checks the few remaining candidates against
+ * the text itself, so it answers the same question as the SQL {@code LIKE '%text%'} without touching the database.
+ * Queries shorter than a trigram check every indexed item. Ids come back in ascending order, which is the order the
+ * database returns them in.
+ * <p>
+ * {@link #searchRanked} tolerates typos and orders the matches by relevance instead.
+ * <p>
+ * The index is filled from the database in parallel chunks by {@link #rebuild} and kept current by {@link #put} on
+ * every item write. Until the first rebuild completes {@link #search} returns nothing, so callers use the database.
+ */
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemSearchIndex {
+    static final long CHUNK_SIZE = 10_000;
+    private static final char FIELD_SEPARATOR = '\0';
+    private static final double NAME_WEIGHT = 2;
+    private static final Comparator<Ranked> BEST_FIRST = Comparator.comparingDouble(Ranked::getScore).reversed()
+            .thenComparingLong(Ranked::getId);
+
+    final ItemRepository itemRepository;
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+    final Map<Long, Postings> postingsByTrigram = new HashMap<>();
+    final Map<Long, String> textById = new HashMap<>();
+    final Postings all = new Postings();
+    Set<Long> writtenDuringRebuild;
+    volatile boolean ready;
+
+    public ItemSearchIndex(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    /**
+     * Loads all available items, one id range per task on the common pool. Items written while the chunks are loading
+     * keep the state {@link #put} gave them.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Long maxId = itemRepository.findMaxId();
+        long chunks = maxId == null ? 0 : maxId / CHUNK_SIZE + 1;
+        List<ItemSearchView> items = LongStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> itemRepository.findSearchViewsByIdBetween(chunk * CHUNK_SIZE,
+                        (chunk + 1) * CHUNK_SIZE - 1))
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(ItemSearchView::getId))
+                .collect(Collectors.toList());
+
+        lock.writeLock().lock();
+        try {
+            for (ItemSearchView item : items) {
+                if (!writtenDuringRebuild.contains(item.getId())) {
+                    add(item.getId(), toText(item.getName(), item.getDescription()));
+                }
+            }
+            writtenDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} available items for search", items.size());
+    }
+
+    /**
+     * Indexes the current text of the item, or drops it if it is no longer available.
+     */
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(item.getId());
+            }
+            remove(item.getId());
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                add(item.getId(), toText(item.getName(), item.getDescription()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of the matching items in ascending order, or nothing if the index has not been built yet
+     */
+    public Optional<List<Long>> search(String text, long offset, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+
+        String query = text.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            long[] candidates = findCandidates(query);
+            List<Long> result = new ArrayList<>(limit);
+            long skipped = 0;
+            for (int i = 0; i < candidates.length && result.size() < limit; i++) {
+                if (textById.get(candidates[i]).contains(query) && skipped++ >= offset) {
+                    result.add(candidates[i]);
+                }
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks the items that contain every word of the text, each word allowed up to {@code maxEdits} typos (fewer for
+     * short words), by the share of the trigrams of the text found in the name and in the description, the name
+     * counting twice. Only the best {@code offset + limit} items are kept while ranking.
+     *
+     * @return ids of the page of best-ranked items, or nothing if the index has not been built yet
+     */
+    public Optional<List<Long>> searchRanked(String text, long offset, int limit, int maxEdits) {
+        if (!ready) {
+            return Optional.empty();
+        }
+
+        List<String> words = TextSimilarity.words(text);
+        if (words.isEmpty()) {
+            return Optional.of(Collections.emptyList());
+        }
+        long[] queryTrigrams = TextSimilarity.trigrams(words);
+        long topSize = offset + limit;
+        PriorityQueue<Ranked> top = new PriorityQueue<>(BEST_FIRST.reversed());
+        lock.readLock().lock();
+        try {
+            for (long id : findRankedCandidates(words, maxEdits)) {
+                String itemText = textById.get(id);
+                int separator = itemText.indexOf(FIELD_SEPARATOR);
+                List<String> name = TextSimilarity.words(itemText.substring(0, separator));
+                List<String> description = TextSimilarity.words(itemText.substring(separator + 1));
+                boolean matches = words.stream().allMatch(word -> {
+                    int edits = TextSimilarity.allowedEdits(word, maxEdits);
+                    return TextSimilarity.matchesAny(word, name, edits)
+                            || TextSimilarity.matchesAny(word, description, edits);
+                });
+                if (!matches) {
+                    continue;
+                }
+
+                double score = NAME_WEIGHT * TextSimilarity.similarity(queryTrigrams, TextSimilarity.trigrams(name))
+                        + TextSimilarity.similarity(queryTrigrams, TextSimilarity.trigrams(description));
+                top.add(new Ranked(id, score));
+                if (top.size() > topSize) {
+                    top.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return Optional.of(top.stream()
+                .sorted(BEST_FIRST)
+                .skip(offset)
+                .map(Ranked::getId)
+                .collect(Collectors.toList()));
+    }
+
+    private long[] findCandidates(String query) {
+        if (query.length() < 3) {
+            return all.toArray();
+        }
+
+        List<Postings> postings = new ArrayList<>();
+        for (long trigram : trigrams(query)) {
+            Postings ids = postingsByTrigram.get(trigram);
+            if (ids == null) {
+                return new long[0];
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(ids -> ids.size));
+
+        long[] candidates = postings.get(0).toArray();
+        for (int i = 1; i < postings.size() && candidates.length > 0; i++) {
+            candidates = postings.get(i).retain(candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * A word with up to {@code e} typos still shares a trigram with its match once it is longer than {@code 3e + 2},
+     * so the items holding any trigram of such a word cover all matches. The word with the fewest of them is used; if
+     * every word is too short, every item is a candidate.
+     */
+    private long[] findRankedCandidates(List<String> words, int maxEdits) {
+        long[] candidates = null;
+        for (String word : words) {
+            if (word.length() <= 3 * TextSimilarity.allowedEdits(word, maxEdits) + 2) {
+                continue;
+            }
+            long[] wordCandidates = LongStream.of(trigrams(word))
+                    .mapToObj(postingsByTrigram::get)
+                    .filter(Objects::nonNull)
+                    .flatMapToLong(ids -> LongStream.of(ids.toArray()))
+                    .distinct()
+                    .toArray();
+            if (candidates == null || wordCandidates.length < candidates.length) {
+                candidates = wordCandidates;
+            }
+        }
+        return candidates != null ? candidates : all.toArray();
+    }
+
+    private void add(long id, String text) {
+        textById.put(id, text);
+        all.add(id);
+        for (long trigram : trigrams(text)) {
+            postingsByTrigram.computeIfAbsent(trigram, key -> new Postings()).add(id);
+        }
+    }
+
+    private void remove(long id) {
+        String text = textById.remove(id);
+        if (text == null) {
+            return;
+        }
+        all.remove(id);
+        for (long trigram : trigrams(text)) {
+            Postings ids = postingsByTrigram.get(trigram);
+            ids.remove(id);
+            if (ids.size == 0) {
+                postingsByTrigram.remove(trigram);
+            }
+        }
+    }
+
+    private static String toText(String name, String description) {
+        return (name + FIELD_SEPARATOR + description).toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        return LongStream.range(0, text.length() - 2)
+                .map(i -> TextSimilarity.pack(text, (int) i))
+                .distinct()
+                .toArray();
+    }
+
+    @Value
+    private static class Ranked {
+        long id;
+        double score;
+    }
+
+    /**
+     * Sorted set of ids backed by a primitive array.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        /**
+         * @return the ids of {@code candidates} that are also in this set
+         */
+        long[] retain(long[] candidates) {
+            long[] result = new long[candidates.length];
+            int count = 0;
+            for (long candidate : candidates) {
+                if (Arrays.binarySearch(ids, 0, size, candidate) >= 0) {
+                    result[count++] = candidate;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package ru.practicum.shareit.item.service;
 
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -17,8 +20,19 @@ public interface ItemService {
 
     Item findById(Long itemId);
 
+    List<Item> findAllByIds(Collection<Long> itemIds);
+
     List<Item> search(String text, int from, int size);
 
+    List<Item> search(String text, String mode, int from, int size);
+
+    /**
+     * @param near latitude and longitude of the center, as {@code "lat,lon"}
+     */
+    List<Item> searchNear(String text, String mode, String near, double radiusKm, int from, int size);
+
+    List<String> suggest(String prefix, int limit);
+
     ItemResponseDto findByIdWithBookings(Long itemId, Long userId);
 
     List<ItemResponseDto> findAllByOwnerId(Long ownerId, int from, int size);
@@ -26,4 +40,6 @@ public interface ItemService {
     Comment addComment(Long userId, Long itemId, Comment comment);
 
     List<ItemResponseDto> findAllByRequestId(Long requestId);
+
+    List<TimeSlotDto> findAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
 }
@@ -5,27 +5,35 @@ import lombok.experimental.FieldDefaults;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDetailView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
-import ru.practicum.shareit.item.dto.comment.CommentResponseDto;
 import ru.practicum.shareit.item.exception.IllegalCommentException;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
+import ru.practicum.shareit.item.exception.ItemWrongLocationException;
+import ru.practicum.shareit.item.exception.ItemWrongSearchModeException;
 import ru.practicum.shareit.item.exception.WrongOwnerException;
 import ru.practicum.shareit.item.mapper.CommentListMapper;
 import ru.practicum.shareit.item.mapper.ItemListMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.SearchMode;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchCache.Searchable;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -41,11 +49,15 @@ public class ItemServiceImpl implements ItemService {
     CommentListMapper commentListMapper;
     ItemListMapper itemListMapper;
     ItemRequestService itemRequestService;
+    ItemSearch itemSearch;
+    ItemSearchCache itemSearchCache;
+    ItemCache itemCache;
 
     public ItemServiceImpl(ItemMapper itemMapper, ItemRepository itemRepository,
                            UserService userService, BookingService bookingService,
                            CommentRepository commentRepository, CommentListMapper commentListMapper,
-                           ItemListMapper itemListMapper, @Lazy ItemRequestService itemRequestService) {
+                           ItemListMapper itemListMapper, @Lazy ItemRequestService itemRequestService,
+                           ItemSearch itemSearch, ItemSearchCache itemSearchCache, ItemCache itemCache) {
         this.itemMapper = itemMapper;
         this.itemRepository = itemRepository;
         this.userService = userService;
@@ -54,6 +66,9 @@ public class ItemServiceImpl implements ItemService {
         this.commentListMapper = commentListMapper;
         this.itemListMapper = itemListMapper;
         this.itemRequestService = itemRequestService;
+        this.itemSearch = itemSearch;
+        this.itemSearchCache = itemSearchCache;
+        this.itemCache = itemCache;
     }
 
     @Override
@@ -64,50 +79,114 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getRequestId() != null) {
             item.setRequest(itemRequestService.getItemRequestById(itemDto.getRequestId()));
         }
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        itemSearch.indexed(saved);
+        itemSearchCache.evict(Searchable.of(saved));
+        return saved;
     }
 
     @Override
     public Item update(ItemDto itemDto, Long itemId, Long userId) {
-        Item item = findById(itemId);
+        Item item = load(itemId);
+        Searchable before = Searchable.of(item);
         itemMapper.updateItemFromDto(itemDto, item);
         if (!Objects.equals(userId, item.getOwner().getId())) {
             throw new WrongOwnerException("Wrong owner");
         }
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        itemSearch.indexed(saved);
+        itemCache.evict(saved.getId());
+        Searchable after = Searchable.of(saved);
+        if (!before.equals(after)) {
+            itemSearchCache.evict(before);
+            itemSearchCache.evict(after);
+        }
+        return saved;
     }
 
     @Override
     public Item findById(Long itemId) {
-        return itemRepository.findById(itemId)
-                .orElseThrow(() -> new ItemNotFoundException("Item not found"));
+        return itemCache.findById(itemId, () -> load(itemId));
+    }
+
+    @Override
+    public List<Item> findAllByIds(Collection<Long> itemIds) {
+        return itemRepository.findAllById(itemIds);
     }
 
     @Override
     public List<Item> search(String text, int from, int size) {
-        int page = from / size;
-        return text.isBlank() ? Collections.emptyList() : itemRepository.search(text, PageRequest.of(page, size));
+        return search(text, SearchMode.PLAIN, from, size);
+    }
+
+    @Override
+    public List<Item> search(String text, String mode, int from, int size) {
+        return search(text, checkSearchMode(mode), from, size);
+    }
+
+    @Override
+    public List<Item> searchNear(String text, String mode, String near, double radiusKm, int from, int size) {
+        SearchMode searchMode = checkSearchMode(mode);
+        double[] center = checkLocation(near);
+        if (!(radiusKm > 0)) {
+            throw new ItemWrongLocationException("Radius must be positive: " + radiusKm);
+        }
+        // Pages near a point are not cached, as moving an item would have to evict them
+        return itemSearch.searchNear(text, searchMode, center[0], center[1], radiusKm,
+                PageRequest.of(from / size, size));
+    }
+
+    @Override
+    public List<String> suggest(String prefix, int limit) {
+        return prefix.isBlank() ? Collections.emptyList() : itemSearch.suggest(prefix, limit);
     }
 
     @Override
     public ItemResponseDto findByIdWithBookings(Long itemId, Long userId) {
-        Item item = findById(itemId);
-        ItemResponseDto result = addBookingsToItem(item);
+        List<ItemDetailView> rows = itemRepository.findDetailById(itemId);
+        if (rows.isEmpty()) {
+            throw new ItemNotFoundException("Item not found");
+        }
+
+        ItemDetailView item = rows.get(0);
+        ItemResponseDto result = itemMapper.toItemResponse(item);
+        result.setComments(commentListMapper.toCommentResponseListFromDetails(rows.stream()
+                .filter(row -> row.getCommentId() != null)
+                .collect(Collectors.toList())));
 
-        if (!Objects.equals(item.getOwner().getId(), userId)) {
-            result.setLastBooking(null);
-            result.setNextBooking(null);
+        // Only the owner sees the bookings, so nobody else pays for looking them up
+        if (Objects.equals(item.getOwnerId(), userId)) {
+            bookingService.addLastAndNextBookings(List.of(result));
         }
 
         return result;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemResponseDto> findAllByOwnerId(Long ownerId, int from, int size) {
         int page = from / size;
-        return itemRepository.findAllByOwnerIdOrderById(ownerId, PageRequest.of(page, size)).stream()
-                .map(this::addBookingsToItem)
+        List<Item> items = itemRepository.findAllByOwnerIdOrderById(ownerId, PageRequest.of(page, size));
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        Map<Long, List<Comment>> commentsByItemId = commentRepository.findAllByItem_IdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+
+        List<ItemResponseDto> result = items.stream()
+                .map(item -> {
+                    ItemResponseDto dto = itemMapper.toItemResponse(item);
+                    dto.setComments(commentListMapper.toCommentResponseList(
+                            commentsByItemId.getOrDefault(item.getId(), Collections.emptyList())
+                    ));
+                    return dto;
+                })
                 .collect(Collectors.toList());
+
+        bookingService.addLastAndNextBookings(result);
+        return result;
     }
 
     @Override
@@ -132,18 +211,51 @@ public class ItemServiceImpl implements ItemService {
         return itemListMapper.toItemResponseDtoList(itemRepository.findAllByRequestId(requestId));
     }
 
+    @Override
+    public List<TimeSlotDto> findAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        Item item = findById(itemId);
+        if (!item.getAvailable()) {
+            return Collections.emptyList();
+        }
+        return bookingService.findFreeSlots(itemId, from, to);
+    }
 
-    private ItemResponseDto addBookingsToItem(Item item) {
-        ItemResponseDto dto = itemMapper.toItemResponse(item);
+    private List<Item> search(String text, SearchMode mode, int from, int size) {
+        if (text.isBlank()) {
+            return Collections.emptyList();
+        }
+        PageRequest pageRequest = PageRequest.of(from / size, size);
+        return itemSearchCache.find(text, mode, pageRequest, () -> mode == SearchMode.PLAIN
+                ? itemSearch.search(text, pageRequest)
+                : itemSearch.searchRanked(text, pageRequest));
+    }
 
-        dto.setLastBooking(bookingService.findLastBookingByItemId(item.getId()));
-        dto.setNextBooking(bookingService.findNextBookingByItemId(item.getId()));
+    private Item load(Long itemId) {
+        return itemRepository.findById(itemId)
+                .orElseThrow(() -> new ItemNotFoundException("Item not found"));
+    }
 
-        List<CommentResponseDto> comments = commentListMapper.toCommentResponseList(
-                commentRepository.findAllByItem_Id(item.getId())
-        );
+    private double[] checkLocation(String near) {
+        String[] parts = near.split(",");
+        try {
+            if (parts.length == 2) {
+                double latitude = Double.parseDouble(parts[0].trim());
+                double longitude = Double.parseDouble(parts[1].trim());
+                if (Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180) {
+                    return new double[]{latitude, longitude};
+                }
+            }
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        throw new ItemWrongLocationException("Location must be \"lat,lon\" in degrees: " + near);
+    }
 
-        dto.setComments(comments);
-        return dto;
+    private SearchMode checkSearchMode(String mode) {
+        try {
+            return SearchMode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ItemWrongSearchModeException("Unknown search mode: " + mode);
+        }
     }
 }
@@ -0,0 +1,355 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.AccessLevel;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemSearchView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Completes item names from a radix tree over the lower-cased names of available items.
+ * <p>
+ * Every node of the tree stores how many items carry the name ending there and the largest such count below it, so the
+ * most common completions of a prefix are found best-first without visiting the whole subtree. Completions come back
+ * in the most common spelling among the items carrying the name.
+ * <p>
+ * The tree is filled from the database in parallel chunks by {@link #rebuild} and kept current by {@link #put} on every
+ * item write, the same way as the {@link ItemSearchIndex}.
+ */
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemSuggestIndex {
+    static final long CHUNK_SIZE = 10_000;
+    private static final Comparator<Candidate> MOST_COMMON_FIRST = Comparator.comparingInt(Candidate::getCount)
+            .reversed()
+            .thenComparing(Candidate::getKey);
+
+    final ItemRepository itemRepository;
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+    final Map<Long, String> nameById = new HashMap<>();
+    final Node root = new Node("");
+    Set<Long> writtenDuringRebuild;
+
+    public ItemSuggestIndex(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    /**
+     * Loads the names of all available items, one id range per task on the common pool. Items written while the
+     * chunks are loading keep the state {@link #put} gave them.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Long maxId = itemRepository.findMaxId();
+        long chunks = maxId == null ? 0 : maxId / CHUNK_SIZE + 1;
+        List<ItemSearchView> items = LongStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> itemRepository.findSearchViewsByIdBetween(chunk * CHUNK_SIZE,
+                        (chunk + 1) * CHUNK_SIZE - 1))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+
+        lock.writeLock().lock();
+        try {
+            for (ItemSearchView item : items) {
+                if (!writtenDuringRebuild.contains(item.getId())) {
+                    add(item.getId(), item.getName());
+                }
+            }
+            writtenDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} item names for suggestions", items.size());
+    }
+
+    /**
+     * Indexes the current name of the item, or drops it if it is no longer available.
+     */
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(item.getId());
+            }
+            remove(item.getId());
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                add(item.getId(), item.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} distinct names starting with the prefix, ignoring case, the most common first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            Candidate start = find(key);
+            if (start == null) {
+                return List.of();
+            }
+
+            List<String> result = new ArrayList<>(limit);
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(MOST_COMMON_FIRST);
+            queue.add(start);
+            while (!queue.isEmpty() && result.size() < limit) {
+                Candidate candidate = queue.poll();
+                Node node = candidate.getNode();
+                if (node == null) {
+                    result.add(candidate.getName());
+                    continue;
+                }
+                if (node.count > 0) {
+                    queue.add(new Candidate(null, candidate.getKey(), node.spelling(), node.count));
+                }
+                for (Node child : node.children) {
+                    queue.add(new Candidate(child, candidate.getKey() + child.label, null, child.maxCount));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the node the prefix ends in, or inside the edge to, with the key of that node
+     */
+    private Candidate find(String prefix) {
+        Node node = root;
+        String key = "";
+        int matched = 0;
+        while (matched < prefix.length()) {
+            Node child = node.child(prefix.charAt(matched));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefixLength(child.label, prefix, matched);
+            if (common < child.label.length() && matched + common < prefix.length()) {
+                return null;
+            }
+            matched += common;
+            key += child.label;
+            node = child;
+        }
+        return new Candidate(node, key, null, node.maxCount);
+    }
+
+    private void add(long id, String name) {
+        nameById.put(id, name);
+        String key = name.toLowerCase(Locale.ROOT);
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null) {
+                child = new Node(key.substring(matched));
+                node.addChild(child);
+                matched = key.length();
+            } else {
+                int common = commonPrefixLength(child.label, key, matched);
+                if (common < child.label.length()) {
+                    child = node.split(child, common);
+                }
+                matched += common;
+            }
+            node = child;
+            path.add(node);
+        }
+        node.addSpelling(name);
+        updateMaxCounts(path);
+    }
+
+    private void remove(long id) {
+        String name = nameById.remove(id);
+        if (name == null) {
+            return;
+        }
+        String key = name.toLowerCase(Locale.ROOT);
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while (matched < key.length()) {
+            node = node.child(key.charAt(matched));
+            matched += node.label.length();
+            path.add(node);
+        }
+        node.removeSpelling(name);
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node current = path.get(i);
+            if (current.count == 0 && current.children.length == 0) {
+                path.get(i - 1).removeChild(current);
+            } else if (current.count == 0 && current.children.length == 1) {
+                current.mergeWithChild();
+            }
+        }
+        updateMaxCounts(path);
+    }
+
+    private static void updateMaxCounts(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            node.maxCount = node.count;
+            for (Node child : node.children) {
+                node.maxCount = Math.max(node.maxCount, child.maxCount);
+            }
+        }
+    }
+
+    private static int commonPrefixLength(String label, String key, int from) {
+        int length = 0;
+        while (length < label.length() && from + length < key.length()
+                && label.charAt(length) == key.charAt(from + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Either a subtree still to expand or, without a node, a name ready to be suggested.
+     */
+    @Value
+    private static class Candidate {
+        Node node;
+        String key;
+        String name;
+        int count;
+    }
+
+    /**
+     * Tree node whose children are kept sorted by the first char of their labels.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        String label;
+        Node[] children = NO_CHILDREN;
+        Map<String, Integer> spellings;
+        int count;
+        int maxCount;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int position = position(first);
+            return position >= 0 ? children[position] : null;
+        }
+
+        void addChild(Node child) {
+            int position = -position(child.label.charAt(0)) - 1;
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, position);
+            grown[position] = child;
+            System.arraycopy(children, position, grown, position + 1, children.length - position);
+            children = grown;
+        }
+
+        void removeChild(Node child) {
+            int position = position(child.label.charAt(0));
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, position);
+            System.arraycopy(children, position + 1, shrunk, position, children.length - position - 1);
+            children = shrunk;
+        }
+
+        void addSpelling(String name) {
+            if (spellings == null) {
+                spellings = new HashMap<>(2);
+            }
+            spellings.merge(name, 1, Integer::sum);
+            count++;
+        }
+
+        void removeSpelling(String name) {
+            spellings.computeIfPresent(name, (spelling, items) -> items > 1 ? items - 1 : null);
+            if (--count == 0) {
+                spellings = null;
+            }
+        }
+
+        /**
+         * @return the spelling most items carry, the first in order among equally common ones
+         */
+        String spelling() {
+            return spellings.entrySet().stream()
+                    .max(Map.Entry.<String, Integer>comparingByValue()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+        }
+
+        /**
+         * Takes over the only child of a node that no longer ends a name.
+         */
+        void mergeWithChild() {
+            Node child = children[0];
+            label += child.label;
+            children = child.children;
+            spellings = child.spellings;
+            count = child.count;
+        }
+
+        /**
+         * Puts a new node for the first {@code length} chars of the child's label between this node and the child.
+         */
+        Node split(Node child, int length) {
+            Node middle = new Node(child.label.substring(0, length));
+            children[position(child.label.charAt(0))] = middle;
+            child.label = child.label.substring(length);
+            middle.children = new Node[]{child};
+            middle.maxCount = child.maxCount;
+            return middle;
+        }
+
+        private int position(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char label = children[middle].label.charAt(0);
+                if (label < first) {
+                    low = middle + 1;
+                } else if (label > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -low - 1;
+        }
+    }
+}
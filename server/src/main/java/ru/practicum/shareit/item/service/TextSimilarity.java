@@ -0,0 +1,121 @@
+package ru.practicum.shareit.item.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Word-level helpers of the ranked item search.
+ */
+final class TextSimilarity {
+    private static final String NOT_A_WORD = "[^\\p{L}\\p{N}]+";
+
+    private TextSimilarity() {
+    }
+
+    /**
+     * @return the lower-cased words of the text
+     */
+    static List<String> words(String text) {
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split(NOT_A_WORD))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Trigrams of the words padded the way pg_trgm does it, two spaces before and one after, so short words and
+     * word starts count too.
+     *
+     * @return sorted distinct trigrams packed into longs
+     */
+    static long[] trigrams(List<String> words) {
+        return words.stream()
+                .map(word -> "  " + word + " ")
+                .flatMapToLong(padded -> LongStream.range(0, padded.length() - 2)
+                        .map(i -> pack(padded, (int) i)))
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * @return the share of the query trigrams found in the text, from 0 to 1
+     */
+    static double similarity(long[] queryTrigrams, long[] textTrigrams) {
+        int shared = 0;
+        for (long trigram : queryTrigrams) {
+            if (Arrays.binarySearch(textTrigrams, trigram) >= 0) {
+                shared++;
+            }
+        }
+        return queryTrigrams.length == 0 ? 0 : (double) shared / queryTrigrams.length;
+    }
+
+    /**
+     * Typos allowed in a query word: none for one or two chars, at most one up to five chars, at most two beyond.
+     */
+    static int allowedEdits(String word, int maxEdits) {
+        int byLength = word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+        return Math.min(maxEdits, byLength);
+    }
+
+    /**
+     * @return whether one of the words contains the query word or starts with it, give or take {@code edits} typos
+     */
+    static boolean matchesAny(String queryWord, List<String> words, int edits) {
+        for (String word : words) {
+            if (word.contains(queryWord)) {
+                return true;
+            }
+            int from = Math.max(1, queryWord.length() - edits);
+            int to = Math.min(word.length(), queryWord.length() + edits);
+            for (int length = from; length <= to; length++) {
+                if (editDistance(queryWord, word.substring(0, length), edits) <= edits) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Levenshtein distance that gives up as soon as it exceeds {@code max}.
+     *
+     * @return the distance, or {@code max + 1} if it is larger than {@code max}
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    /**
+     * Packs the three chars starting at the index into one long, so trigrams are compared without building strings.
+     */
+    static long pack(String text, int index) {
+        return (long) text.charAt(index) << 32 | (long) text.charAt(index + 1) << 16 | text.charAt(index + 2);
+    }
+}
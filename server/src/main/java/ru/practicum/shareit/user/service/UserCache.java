@@ -0,0 +1,41 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.ReadThroughCache;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Keeps users by id for {@link UserService#findById}, which nearly every request goes through to check the caller.
+ * <p>
+ * Cached users are shared between requests and must not be modified. A user is evicted whenever it is updated or
+ * deleted. Meters are tagged {@code cache=users}.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class UserCache {
+    ReadThroughCache<Long, User> users;
+
+    public UserCache(@Value("${shareit.cache.users.max-size:10000}") int maxSize,
+                     @Value("${shareit.cache.users.ttl:PT10M}") Duration ttl,
+                     MeterRegistry meterRegistry) {
+        this.users = new ReadThroughCache<>("users", maxSize, ttl, meterRegistry);
+    }
+
+    /**
+     * @param loader loads the user, or throws if there is none
+     */
+    public User findById(Long userId, Supplier<User> loader) {
+        return users.get(userId, loader);
+    }
+
+    public void evict(Long userId) {
+        users.evict(userId);
+    }
+}
@@ -19,6 +19,7 @@ public class UserServiceImpl implements UserService {
 
     UserMapper userMapper;
     UserRepository userRepository;
+    UserCache userCache;
 
     @Override
     public List<User> findAll() {
@@ -36,17 +37,18 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User findById(Long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        return userCache.findById(userId, () -> load(userId));
     }
 
     @Override
     public User update(User user, Long id) {
         user.setId(id);
-        User newUser = findById(id);
+        User newUser = load(id);
         userMapper.updateUserFromDto(user, newUser);
         try {
-            return userRepository.save(newUser);
+            User saved = userRepository.save(newUser);
+            userCache.evict(id);
+            return saved;
         } catch (RuntimeException e) {
             throw new EmailAlreadyExistsException("Email already exist");
         }
@@ -55,5 +57,11 @@ public class UserServiceImpl implements UserService {
     @Override
     public void delete(Long userId) {
         userRepository.deleteById(userId);
+        userCache.evict(userId);
+    }
+
+    private User load(Long userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
     }
 }
@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id         BIGINT PRIMARY KEY,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE,
+    item_id    BIGINT,
+    booker_id  BIGINT,
+    owner_id   BIGINT,
+    status     VARCHAR(16),
+    FOREIGN KEY (item_id) REFERENCES items (id),
+    FOREIGN KEY (booker_id) REFERENCES users (id),
+    FOREIGN KEY (owner_id) REFERENCES users (id)
+);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_booker_start_idx ON bookings_archive (booker_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_owner_start_idx ON bookings_archive (owner_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_booker_item_idx ON bookings_archive (booker_id, item_id);
@@ -0,0 +1,68 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+SELECT setval('bookings_seq', GREATEST((SELECT last_value FROM bookings_seq),
+                                       (SELECT COALESCE(MAX(id), 0) FROM bookings) + 50));
+
+DO 'DECLARE
+    conflicts TEXT;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''bookings_end_after_start'') THEN
+        ALTER TABLE bookings ADD CONSTRAINT bookings_end_after_start CHECK (end_date > start_date) NOT VALID;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''bookings_no_overlap'') THEN
+        SELECT string_agg(pair, '', '') INTO conflicts FROM (
+            SELECT a.id || ''/'' || b.id AS pair
+            FROM bookings a JOIN bookings b ON b.item_id = a.item_id AND b.id > a.id
+            WHERE a.status IN (''WAITING'', ''APPROVED'') AND b.status IN (''WAITING'', ''APPROVED'')
+              AND a.end_date > a.start_date AND b.end_date > b.start_date
+              AND a.start_date < b.end_date AND b.start_date < a.end_date
+            LIMIT 100) pairs;
+
+        IF conflicts IS NULL THEN
+            ALTER TABLE bookings ADD CONSTRAINT bookings_no_overlap EXCLUDE USING gist (
+                item_id WITH =,
+                tsrange(start_date, end_date) WITH &&
+            ) WHERE (status IN (''WAITING'', ''APPROVED'') AND end_date > start_date);
+        ELSE
+            RAISE WARNING ''bookings_no_overlap is not added until these overlapping bookings are rejected: %'',
+                conflicts;
+        END IF;
+    END IF;
+END';
+
+CREATE OR REPLACE FUNCTION bookings_copy_owner_id() RETURNS trigger LANGUAGE plpgsql AS 'BEGIN
+    UPDATE bookings SET owner_id = NEW.owner_id WHERE item_id = NEW.id;
+    RETURN NEW;
+END';
+
+DROP TRIGGER IF EXISTS items_owner_id_changed ON items;
+
+CREATE TRIGGER items_owner_id_changed AFTER UPDATE OF owner_id ON items FOR EACH ROW
+    WHEN (OLD.owner_id IS DISTINCT FROM NEW.owner_id) EXECUTE PROCEDURE bookings_copy_owner_id();
+
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id         BIGINT                      NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE,
+    item_id    BIGINT REFERENCES items (id),
+    booker_id  BIGINT REFERENCES users (id),
+    owner_id   BIGINT REFERENCES users (id),
+    status     VARCHAR(16),
+    PRIMARY KEY (id, start_date)
+) PARTITION BY RANGE (start_date);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_booker_start_idx ON bookings_archive (booker_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_owner_start_idx ON bookings_archive (owner_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_booker_item_idx ON bookings_archive (booker_id, item_id);
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED;
+
+CREATE INDEX IF NOT EXISTS items_search_vector_idx ON items USING gin (search_vector);
@@ -26,18 +26,41 @@ CREATE TABLE IF NOT EXISTS items
     FOREIGN KEY (request_id) REFERENCES requests (id)
 );
 
+ALTER TABLE items ADD COLUMN IF NOT EXISTS latitude DOUBLE PRECISION;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS longitude DOUBLE PRECISION;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS geo_cell BIGINT;
+
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS bookings
 (
-    id         BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    id         BIGINT PRIMARY KEY,
     start_date TIMESTAMP WITHOUT TIME ZONE,
     end_date   TIMESTAMP WITHOUT TIME ZONE,
     item_id    BIGINT,
     booker_id  BIGINT,
     status     VARCHAR(255),
+    owner_id   BIGINT,
+    phase      VARCHAR(16),
     FOREIGN KEY (item_id) REFERENCES items (id),
-    FOREIGN KEY (booker_id) REFERENCES users (id)
+    FOREIGN KEY (booker_id) REFERENCES users (id),
+    FOREIGN KEY (owner_id) REFERENCES users (id)
 );
 
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS owner_id BIGINT REFERENCES users (id);
+
+UPDATE bookings SET owner_id = (SELECT owner_id FROM items WHERE items.id = bookings.item_id) WHERE owner_id IS NULL;
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS phase VARCHAR(16);
+
+UPDATE bookings SET phase = CASE
+    WHEN start_date > CURRENT_TIMESTAMP THEN 'FUTURE'
+    WHEN end_date > CURRENT_TIMESTAMP THEN 'CURRENT'
+    ELSE 'PAST' END
+WHERE phase IS NULL;
+
 CREATE TABLE IF NOT EXISTS comments
 (
     id        BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
@@ -50,3 +73,32 @@ CREATE TABLE IF NOT EXISTS comments
 );
 
 
+CREATE INDEX IF NOT EXISTS requests_requester_created_idx ON requests (requester_id, created);
+
+CREATE INDEX IF NOT EXISTS requests_created_idx ON requests (created);
+
+CREATE INDEX IF NOT EXISTS items_owner_id_idx ON items (owner_id, id);
+
+CREATE INDEX IF NOT EXISTS items_request_id_idx ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS items_geo_cell_idx ON items (geo_cell);
+
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_booker_status_start_idx ON bookings (booker_id, status, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_owner_start_idx ON bookings (owner_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_owner_status_start_idx ON bookings (owner_id, status, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_booker_phase_start_idx ON bookings (booker_id, phase, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_owner_phase_start_idx ON bookings (owner_id, phase, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_phase_start_idx ON bookings (phase, start_date);
+
+CREATE INDEX IF NOT EXISTS bookings_phase_end_idx ON bookings (phase, end_date);
+
+CREATE INDEX IF NOT EXISTS bookings_item_status_start_idx ON bookings (item_id, status, start_date);
+
+CREATE INDEX IF NOT EXISTS comments_item_id_idx ON comments (item_id);
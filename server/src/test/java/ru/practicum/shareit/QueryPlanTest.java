@@ -0,0 +1,242 @@
+package ru.practicum.shareit;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.model.Phase;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.GeoCell;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Calls each repository query on a seeded dataset, records the SQL Hibernate sends for it, and runs EXPLAIN on every
+ * recorded statement; fails if a plan scans a table. H2 plans statements with their parameters unbound.
+ */
+@DataJpaTest
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+    static final int USERS = 50;
+    static final int ITEMS_PER_USER = 4;
+    static final int BOOKINGS_PER_ITEM = 10;
+    static final String TABLE_SCAN = "tableScan";
+    static final Long USER_ID = 7L;
+    static final Long ITEM_ID = 12L;
+    static final Long REQUEST_ID = 3L;
+    static final Long BOOKING_ID = 100L;
+    static final List<Long> ITEM_IDS = List.of(12L, 13L, 14L);
+    static final List<Long> BOOKING_IDS = List.of(100L, 101L);
+    static final PageRequest PAGE = PageRequest.of(0, 20);
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    RecordedStatements recordedStatements;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    CommentRepository commentRepository;
+    @Autowired
+    ItemRequestRepository itemRequestRepository;
+
+    Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                query("BookingRepository.findByBookerIdOrderByStartDesc",
+                        () -> bookingRepository.findByBookerIdOrderByStartDesc(USER_ID, PAGE)),
+                query("BookingRepository.findByBookerIdAndStatusOrderByStartDesc",
+                        () -> bookingRepository.findByBookerIdAndStatusOrderByStartDesc(USER_ID, Status.WAITING, PAGE)),
+                query("BookingRepository.findByBookerIdAndPhaseOrderByStartDesc",
+                        () -> bookingRepository.findByBookerIdAndPhaseOrderByStartDesc(USER_ID, Phase.PAST, PAGE)),
+                query("BookingRepository.findByBookerIdAndPhaseOrderByIdAsc",
+                        () -> bookingRepository.findByBookerIdAndPhaseOrderByIdAsc(USER_ID, Phase.CURRENT, PAGE)),
+                query("BookingRepository.findByBookerIdAndPhaseBeforeCursor",
+                        () -> bookingRepository.findByBookerIdAndPhaseBeforeCursor(USER_ID, Phase.FUTURE,
+                                LocalDateTime.now(), BOOKING_ID, PAGE)),
+                query("BookingRepository.findByBookerIdBeforeCursor",
+                        () -> bookingRepository.findByBookerIdBeforeCursor(USER_ID, LocalDateTime.now(), BOOKING_ID,
+                                PAGE)),
+                query("BookingRepository.findByBookerIdAndStatusBeforeCursor",
+                        () -> bookingRepository.findByBookerIdAndStatusBeforeCursor(USER_ID, Status.APPROVED,
+                                LocalDateTime.now(), BOOKING_ID, PAGE)),
+                query("BookingRepository.existsByBookerIdAndItemIdAndEndIsBeforeAndStatus",
+                        () -> bookingRepository.existsByBookerIdAndItemIdAndEndIsBeforeAndStatus(USER_ID, ITEM_ID,
+                                LocalDateTime.now(), Status.APPROVED)),
+                query("BookingRepository.countByBookerIdPerState",
+                        () -> bookingRepository.countByBookerIdPerState(USER_ID)),
+                query("BookingRepository.countByOwnerIdPerState",
+                        () -> bookingRepository.countByOwnerIdPerState(USER_ID)),
+                query("BookingRepository.findByOwnerId",
+                        () -> bookingRepository.findByOwnerId(USER_ID, PAGE)),
+                query("BookingRepository.findByOwnerIdAndStatus",
+                        () -> bookingRepository.findByOwnerIdAndStatus(USER_ID, Status.WAITING, PAGE)),
+                query("BookingRepository.findByOwnerIdAndPhaseOrderByStartDesc",
+                        () -> bookingRepository.findByOwnerIdAndPhaseOrderByStartDesc(USER_ID, Phase.FUTURE, PAGE)),
+                query("BookingRepository.findByOwnerIdAndPhaseBeforeCursor",
+                        () -> bookingRepository.findByOwnerIdAndPhaseBeforeCursor(USER_ID, Phase.CURRENT,
+                                LocalDateTime.now(), BOOKING_ID, PAGE)),
+                query("BookingRepository.findPartiesDueToStart",
+                        () -> bookingRepository.findPartiesDueToStart(LocalDateTime.now())),
+                query("BookingRepository.findPartiesDueToFinish",
+                        () -> bookingRepository.findPartiesDueToFinish(LocalDateTime.now())),
+                query("BookingRepository.findApprovedDueToFinish",
+                        () -> bookingRepository.findApprovedDueToFinish(LocalDateTime.now())),
+                query("BookingRepository.startDueBookings",
+                        () -> bookingRepository.startDueBookings(LocalDateTime.now())),
+                query("BookingRepository.finishDueBookings",
+                        () -> bookingRepository.finishDueBookings(LocalDateTime.now())),
+                query("BookingRepository.findNextStart", () -> bookingRepository.findNextStart()),
+                query("BookingRepository.findNextEnd", () -> bookingRepository.findNextEnd()),
+                query("BookingRepository.findByItemIdAndStatusInAndEndAfter",
+                        () -> bookingRepository.findByItemIdAndStatusInAndEndAfter(ITEM_ID,
+                                List.of(Status.WAITING, Status.APPROVED), LocalDateTime.now())),
+                query("BookingRepository.findLastAndNextBookingsByItemIds",
+                        () -> bookingRepository.findLastAndNextBookingsByItemIds(ITEM_IDS)),
+                query("BookingRepository.findAllByIdInAndOwnerId",
+                        () -> bookingRepository.findAllByIdInAndOwnerId(BOOKING_IDS, USER_ID)),
+                query("BookingRepository.findArchivableIds",
+                        () -> bookingRepository.findArchivableIds(LocalDateTime.now(), PageRequest.of(0, 500))),
+                query("ArchivedBookingRepository.findByBookerIdBeforeCursor",
+                        () -> archivedBookingRepository.findByBookerIdBeforeCursor(USER_ID, LocalDateTime.now(),
+                                BOOKING_ID, PAGE)),
+                query("ArchivedBookingRepository.findByOwnerId",
+                        () -> archivedBookingRepository.findByOwnerId(USER_ID, PAGE)),
+                query("ArchivedBookingRepository.findWithItemAndBookerById",
+                        () -> archivedBookingRepository.findWithItemAndBookerById(BOOKING_ID)),
+                query("ArchivedBookingRepository.existsByBookerIdAndItemIdAndStatus",
+                        () -> archivedBookingRepository.existsByBookerIdAndItemIdAndStatus(USER_ID, ITEM_ID,
+                                Status.APPROVED)),
+                query("ItemRepository.findAllByOwnerIdOrderById",
+                        () -> itemRepository.findAllByOwnerIdOrderById(USER_ID, PAGE)),
+                query("ItemRepository.findDetailById", () -> itemRepository.findDetailById(ITEM_ID)),
+                query("ItemRepository.findAvailableInCells",
+                        () -> itemRepository.findAvailableInCells(List.of(new GeoCell.Range(100, 200),
+                                new GeoCell.Range(300, 400)))),
+                query("ItemRepository.findAllByRequestId", () -> itemRepository.findAllByRequestId(REQUEST_ID)),
+                query("CommentRepository.findAllByItem_IdIn", () -> commentRepository.findAllByItem_IdIn(ITEM_IDS)),
+                query("ItemRequestRepository.findAllByRequesterIdOrderByCreated",
+                        () -> itemRequestRepository.findAllByRequesterIdOrderByCreated(USER_ID)),
+                query("ItemRequestRepository.findAllByRequesterIdNotOrderByCreated",
+                        () -> itemRequestRepository.findAllByRequesterIdNotOrderByCreated(USER_ID, PAGE))
+        );
+    }
+
+    @BeforeAll
+    void seed() {
+        int items = USERS * ITEMS_PER_USER;
+
+        insert("INSERT INTO users (name, email) VALUES (?, ?)", USERS,
+                i -> new Object[]{"user" + i, "user" + i + "@mail.ru"});
+        insert("INSERT INTO requests (description, created, requester_id) " +
+                        "VALUES (?, CURRENT_TIMESTAMP, (SELECT MIN(id) FROM users) + ?)", USERS,
+                i -> new Object[]{"request" + i, i});
+        insert("INSERT INTO items (name, description, available, owner_id) " +
+                        "VALUES (?, ?, TRUE, (SELECT MIN(id) FROM users) + ?)", items,
+                i -> new Object[]{"item" + i, "description" + i, i % USERS});
+        insert("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status, owner_id, phase) " +
+                        "VALUES (NEXT VALUE FOR bookings_seq, DATEADD(DAY, ?, CURRENT_TIMESTAMP), " +
+                        "DATEADD(DAY, ? + 1, CURRENT_TIMESTAMP), (SELECT MIN(id) FROM items) + ?, " +
+                        "(SELECT MIN(id) FROM users) + ?, ?, (SELECT MIN(id) FROM users) + ?, ?)",
+                items * BOOKINGS_PER_ITEM,
+                i -> new Object[]{i % 40 - 20, i % 40 - 20, i % items, (i + 1) % USERS,
+                        i % 3 == 0 ? "WAITING" : "APPROVED", i % items % USERS,
+                        i % 40 < 19 ? "PAST" : i % 40 == 19 ? "CURRENT" : "FUTURE"});
+        jdbcTemplate.update("INSERT INTO bookings_archive (id, start_date, end_date, item_id, booker_id, owner_id, " +
+                "status) SELECT id + 1000000, DATEADD(YEAR, -2, start_date), DATEADD(YEAR, -2, end_date), item_id, " +
+                "booker_id, owner_id, status FROM bookings");
+        insert("INSERT INTO comments (text, item_id, author_id, created) " +
+                        "VALUES (?, (SELECT MIN(id) FROM items) + ?, (SELECT MIN(id) FROM users) + ?, CURRENT_TIMESTAMP)",
+                items, i -> new Object[]{"comment" + i, i, (i + 1) % USERS});
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void explain_whenDataSeeded_thenNoTableScan(String query, Runnable call) {
+        recordedStatements.clear();
+        call.run();
+        List<String> statements = recordedStatements.take();
+
+        assertFalse(statements.isEmpty(), () -> query + " ran no SQL");
+        for (String sql : statements) {
+            String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+            assertFalse(plan.contains(TABLE_SCAN), () -> query + " falls back to a full scan:\n" + plan);
+        }
+    }
+
+    private void insert(String sql, int rows, IntFunction<Object[]> row) {
+        List<Object[]> args = IntStream.range(0, rows).mapToObj(row).collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    private static Arguments query(String name, Runnable call) {
+        return Arguments.of(name, call);
+    }
+
+    /**
+     * Collects every statement Hibernate prepares, with parameters left as placeholders.
+     */
+    static class RecordedStatements implements StatementInspector {
+        final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        void clear() {
+            statements.clear();
+        }
+
+        List<String> take() {
+            List<String> taken = List.copyOf(statements);
+            statements.clear();
+            return taken;
+        }
+    }
+
+    @TestConfiguration
+    static class RecordingConfig {
+        @Bean
+        RecordedStatements recordedStatements() {
+            return new RecordedStatements();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspector(RecordedStatements recordedStatements) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, recordedStatements);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingArchiver;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {"db.name=test"})
+@Transactional
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class BookingArchiverTest {
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    @Autowired
+    BookingArchiver bookingArchiver;
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    EntityManager entityManager;
+    User owner;
+    User booker;
+    Item item;
+    Booking bookingOld;
+    Booking bookingPast;
+    Booking bookingFuture;
+
+    @BeforeEach
+    void setUp() {
+        User u = new User();
+        u.setName("owner");
+        u.setEmail("owner@archive.ru");
+        owner = userRepository.save(u);
+
+        User u2 = new User();
+        u2.setName("booker");
+        u2.setEmail("booker@archive.ru");
+        booker = userRepository.save(u2);
+
+        Item i = new Item();
+        i.setName("drill");
+        i.setDescription("drill");
+        i.setAvailable(true);
+        i.setOwner(owner);
+        item = itemRepository.save(i);
+
+        bookingOld = save(now.minusDays(800), now.minusDays(790));
+        bookingPast = save(now.minusDays(20), now.minusDays(10));
+        bookingFuture = save(now.plusDays(10), now.plusDays(20));
+    }
+
+    @Test
+    void archive_whenBookingEndedBeforeHorizon_thenMovedToArchive() {
+        assertEquals(1, bookingArchiver.archive(now.minusDays(365)));
+        entityManager.clear();
+
+        assertTrue(bookingRepository.findById(bookingOld.getId()).isEmpty());
+        assertTrue(bookingRepository.findById(bookingPast.getId()).isPresent());
+        assertTrue(bookingRepository.findById(bookingFuture.getId()).isPresent());
+        assertEquals(bookingOld.getStart(), archivedBookingRepository.findById(bookingOld.getId()).orElseThrow()
+                .getStart());
+    }
+
+    @Test
+    void archive_whenOldBookingNotApproved_thenKeptInBookings() {
+        Booking rejected = save(now.minusDays(800), now.minusDays(790), Status.REJECTED);
+        Booking waiting = save(now.minusDays(700), now.minusDays(690), Status.WAITING);
+
+        assertEquals(1, bookingArchiver.archive(now.minusDays(365)));
+
+        assertTrue(bookingRepository.findById(rejected.getId()).isPresent());
+        assertTrue(bookingRepository.findById(waiting.getId()).isPresent());
+    }
+
+    @Test
+    void findByUserIdAndState_whenOldBookingsNotApproved_thenStillListedByStatusAfterArchiveRun() {
+        Booking rejected = save(now.minusDays(800), now.minusDays(790), Status.REJECTED);
+        Booking waiting = save(now.minusDays(700), now.minusDays(690), Status.WAITING);
+        bookingArchiver.archive(now.minusDays(365));
+        entityManager.clear();
+
+        assertEquals(List.of(rejected.getId()), bookingService.findByUserIdAndState(booker.getId(), "REJECTED", 0, 10)
+                .stream().map(BookingResponseDto::getId).collect(Collectors.toList()));
+        assertEquals(List.of(waiting.getId()), bookingService.findByOwnerIdAndState(owner.getId(), "WAITING", 0, 10)
+                .stream().map(BookingResponseDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findSummaryByOwnerId_whenOldBookingsNotApproved_thenStillCountedByStatusAfterArchiveRun() {
+        save(now.minusDays(800), now.minusDays(790), Status.REJECTED);
+        save(now.minusDays(700), now.minusDays(690), Status.WAITING);
+        bookingArchiver.archive(now.minusDays(365));
+
+        BookingSummaryDto summary = bookingService.findSummaryByOwnerId(owner.getId());
+
+        assertEquals(5L, summary.getAll());
+        assertEquals(4L, summary.getPast());
+        assertEquals(1L, summary.getWaiting());
+        assertEquals(1L, summary.getRejected());
+    }
+
+    @Test
+    void findByIdAndUserId_whenBookingArchived_thenFoundForBookerAndOwner() {
+        bookingArchiver.archive(now.minusDays(365));
+        entityManager.clear();
+
+        Booking forBooker = bookingService.findByIdAndUserId(bookingOld.getId(), booker.getId());
+        Booking forOwner = bookingService.findByIdAndUserId(bookingOld.getId(), owner.getId());
+
+        assertEquals(bookingOld.getStart(), forBooker.getStart());
+        assertEquals(Phase.PAST, forBooker.getPhase());
+        assertEquals(item.getName(), forBooker.getItem().getName());
+        assertEquals(booker.getName(), forBooker.getBooker().getName());
+        assertEquals(bookingOld.getId(), forOwner.getId());
+    }
+
+    @Test
+    void archive_whenNothingEndedBeforeHorizon_thenNothingMoved() {
+        assertEquals(0, bookingArchiver.archive(now.minusDays(1000)));
+    }
+
+    @Test
+    void findByUserIdAndState_whenPastBookingArchived_thenListedAfterNewerOnes() {
+        bookingArchiver.archive(now.minusDays(365));
+        entityManager.clear();
+
+        List<BookingResponseDto> result = bookingService.findByUserIdAndState(booker.getId(), "PAST", 0, 10);
+
+        assertEquals(List.of(bookingPast.getId(), bookingOld.getId()),
+                result.stream().map(BookingResponseDto::getId).collect(Collectors.toList()));
+        assertEquals(item.getId(), result.get(1).getItem().getId());
+    }
+
+    @Test
+    void findByOwnerIdAndState_whenBookingArchivedAndPagedByOffset_thenEveryPageFromBothSources() {
+        bookingArchiver.archive(now.minusDays(365));
+        entityManager.clear();
+
+        List<Long> pages = List.of(0, 1, 2, 3).stream()
+                .flatMap(from -> bookingService.findByOwnerIdAndState(owner.getId(), "ALL", from, 1).stream())
+                .map(BookingResponseDto::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(bookingFuture.getId(), bookingPast.getId(), bookingOld.getId()), pages);
+    }
+
+    @Test
+    void findByOwnerIdAndStateAfterCursor_whenPastBookingArchived_thenReachedAfterNewerOnes() {
+        bookingArchiver.archive(now.minusDays(365));
+        entityManager.clear();
+        String cursor = new BookingCursor(bookingPast.getStart(), bookingPast.getId()).encode();
+
+        List<BookingResponseDto> result = bookingService.findByOwnerIdAndStateAfterCursor(owner.getId(), "PAST", cursor, 10);
+
+        assertEquals(List.of(bookingOld.getId()), result.stream().map(BookingResponseDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findSummaryByUserId_whenPastBookingArchived_thenStillCounted() {
+        bookingArchiver.archive(now.minusDays(365));
+
+        assertEquals(3L, bookingService.findSummaryByUserId(booker.getId()).getAll());
+        assertEquals(2L, bookingService.findSummaryByUserId(booker.getId()).getPast());
+    }
+
+    @Test
+    void hasUserBookedItem_whenOnlyArchivedBooking_thenTrue() {
+        bookingRepository.delete(bookingPast);
+        bookingArchiver.archive(now.minusDays(365));
+
+        assertTrue(bookingService.hasUserBookedItem(booker.getId(), item.getId()));
+    }
+
+    private Booking save(LocalDateTime start, LocalDateTime end) {
+        return save(start, end, Status.APPROVED);
+    }
+
+    private Booking save(LocalDateTime start, LocalDateTime end, Status status) {
+        Booking booking = new Booking();
+        booking.setStatus(status);
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        return bookingRepository.save(booking);
+    }
+}
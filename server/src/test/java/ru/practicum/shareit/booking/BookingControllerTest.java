@@ -9,24 +9,41 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
+import ru.practicum.shareit.user.exception.UserNotFoundException;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
+@Import(IdempotencyStore.class)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 class BookingControllerTest {
 
     static final String USER_HEADER = "X-Sharer-User-Id";
+    static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
     final long userId = 1L;
     final long bookingId = 3L;
     final LocalDateTime start = LocalDateTime.now().plusDays(1);
@@ -66,6 +83,45 @@ class BookingControllerTest {
         verify(bookingService, times(1)).create(booking, userId);
     }
 
+    @Test
+    @SneakyThrows
+    void create_whenIdempotencyKeyReusedForOtherRequest_thenUnprocessableEntity() {
+        Booking booking = new Booking();
+        when(bookingMapper.toBooking(any())).thenReturn(booking);
+
+        mockMvc.perform(post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookingRequestDto))
+                        .header(USER_HEADER, userId)
+                        .header(IDEMPOTENCY_HEADER, "key"))
+                .andExpect(status().isOk());
+        bookingRequestDto.setItemId(3L);
+        mockMvc.perform(post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookingRequestDto))
+                        .header(USER_HEADER, userId)
+                        .header(IDEMPOTENCY_HEADER, "key"))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(bookingService, times(1)).create(booking, userId);
+    }
+
+    @Test
+    @SneakyThrows
+    void createAll() {
+        Booking booking = new Booking();
+
+        when(bookingMapper.toBooking(bookingRequestDto)).thenReturn(booking);
+
+        mockMvc.perform(post("/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(bookingRequestDto, bookingRequestDto)))
+                        .header(USER_HEADER, userId))
+                .andExpect(status().isOk());
+
+        verify(bookingService, times(1)).createAll(List.of(booking, booking), userId);
+    }
+
 /*    @Test
     @SneakyThrows
     void create_whenStartInThePast_thenReturnedBadRequest() {
@@ -142,6 +198,20 @@ class BookingControllerTest {
         );
     }
 
+    @Test
+    @SneakyThrows
+    void approveAll() {
+        Map<Long, Boolean> decisions = Map.of(bookingId, true, 4L, false);
+
+        mockMvc.perform(patch("/bookings/owner/decisions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(decisions))
+                        .header(USER_HEADER, userId))
+                .andExpect(status().isOk());
+
+        verify(bookingService, times(1)).approveAll(decisions, userId);
+    }
+
     @Test
     @SneakyThrows
     void findById() {
@@ -152,6 +222,57 @@ class BookingControllerTest {
         verify(bookingService, times(1)).findByIdAndUserId(bookingId, userId);
     }
 
+    @Test
+    @SneakyThrows
+    void findSummaryByOwnerId() {
+        when(bookingService.findSummaryByOwnerId(userId)).thenReturn(new BookingSummaryDto(3L, 1L, 1L, 1L, 2L, 0L));
+
+        mockMvc.perform(get("/bookings/owner/summary")
+                        .header(USER_HEADER, userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(3))
+                .andExpect(jsonPath("$.waiting").value(2));
+
+        verify(bookingService, times(1)).findSummaryByOwnerId(userId);
+    }
+
+    @Test
+    @SneakyThrows
+    void exportByUserId_thenOneJsonObjectPerLine() {
+        BookingResponseDto first = new BookingResponseDto();
+        first.setId(1L);
+        BookingResponseDto second = new BookingResponseDto();
+        second.setId(2L);
+        doAnswer(invocation -> {
+            Consumer<BookingResponseDto> consumer = invocation.getArgument(1);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(bookingService).exportByUserId(eq(userId), any());
+
+        String body = mockMvc.perform(get("/bookings/export")
+                        .header(USER_HEADER, userId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(first, objectMapper.readValue(lines[0], BookingResponseDto.class));
+        assertEquals(second, objectMapper.readValue(lines[1], BookingResponseDto.class));
+    }
+
+    @Test
+    @SneakyThrows
+    void exportByOwnerId_whenUserNotFound_thenJsonError() {
+        doThrow(new UserNotFoundException("not found")).when(bookingService).exportByOwnerId(eq(userId), any());
+
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header(USER_HEADER, userId))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
     @Test
     @SneakyThrows
     void findAllByUserIdAndState() {
@@ -341,4 +462,38 @@ class BookingControllerTest {
                 anyLong(), anyString(), anyInt(), anyInt()
         );
     }*/
-}
\ No newline at end of file
+
+    @Test
+    @SneakyThrows
+    void findAllByUserIdAndState_withCursor_thenInvokedCursorSearch() {
+        String cursor = new BookingCursor(start, 5L).encode();
+
+        mockMvc.perform(get("/bookings")
+                        .header(USER_HEADER, userId)
+                        .param("cursor", cursor)
+                        .param("size", "10"))
+                .andExpect(status().isOk());
+
+        verify(bookingService, times(1)).findByUserIdAndStateAfterCursor(userId, "ALL", cursor, 10);
+        verify(bookingService, never()).findByUserIdAndState(anyLong(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    @SneakyThrows
+    void findAllByOwnerIdAndState_whenPageIsFull_thenReturnedNextCursor() {
+        BookingResponseDto booking = new BookingResponseDto();
+        booking.setId(5L);
+        booking.setStart(start);
+        String cursor = new BookingCursor(start, 7L).encode();
+
+        when(bookingService.findByOwnerIdAndStateAfterCursor(userId, "ALL", cursor, 1))
+                .thenReturn(List.of(booking));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .header(USER_HEADER, userId)
+                        .param("cursor", cursor)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", BookingCursor.of(booking).encode()));
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.exception.BookingWrongCursorException;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookingCursorTest {
+
+    @Test
+    void decode_whenEncodedCursor_thenReturnedSamePosition() {
+        BookingResponseDto booking = new BookingResponseDto();
+        booking.setId(42L);
+        booking.setStart(LocalDateTime.of(2023, 5, 1, 12, 30, 15));
+
+        BookingCursor result = BookingCursor.decode(BookingCursor.of(booking).encode());
+
+        assertEquals(booking.getStart(), result.getStart());
+        assertEquals(booking.getId(), result.getId());
+    }
+
+    @Test
+    void decode_whenNotBase64_thenBookingWrongCursorThrown() {
+        assertThrows(BookingWrongCursorException.class, () -> BookingCursor.decode("%%%"));
+    }
+
+    @Test
+    void decode_whenMalformedPosition_thenBookingWrongCursorThrown() {
+        String cursor = Base64.getUrlEncoder().encodeToString("2023-05-01T12:30".getBytes());
+
+        assertThrows(BookingWrongCursorException.class, () -> BookingCursor.decode(cursor));
+    }
+}
@@ -0,0 +1,160 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class BookingIntervalIndexTest {
+    final Long itemId = 1L;
+    final LocalDateTime start = LocalDateTime.now().plusDays(1);
+    final LocalDateTime end = start.plusDays(2);
+    @Mock
+    BookingRepository bookingRepository;
+    @InjectMocks
+    BookingIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(bookingRepository.findByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(),
+                any(LocalDateTime.class))).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    void reserve_whenIntervalOverlapsReserved_thenBookingOverlapThrown() {
+        index.reserve(itemId, start, end);
+
+        assertThrows(BookingOverlapException.class, () -> index.reserve(itemId, start.plusDays(1), end.plusDays(1)));
+        assertThrows(BookingOverlapException.class, () -> index.reserve(itemId, start.minusDays(1), end.minusDays(1)));
+        assertThrows(BookingOverlapException.class, () -> index.reserve(itemId, start.plusHours(1), end.minusHours(1)));
+    }
+
+    @Test
+    void reserve_whenIntervalsAdjacent_thenReserved() {
+        index.reserve(itemId, start, end);
+
+        assertDoesNotThrow(() -> index.reserve(itemId, end, end.plusDays(1)));
+        assertDoesNotThrow(() -> index.reserve(itemId, start.minusDays(1), start));
+        assertDoesNotThrow(() -> index.reserve(2L, start, end));
+    }
+
+    @Test
+    void reserve_whenReleased_thenIntervalIsFreeAgain() {
+        index.reserve(itemId, start, end);
+        index.release(itemId, start);
+
+        assertDoesNotThrow(() -> index.reserve(itemId, start, end));
+    }
+
+    @Test
+    void reserve_whenItemHasStoredBookings_thenLoadedOnce() {
+        Booking stored = new Booking();
+        stored.setStart(start);
+        stored.setEnd(end);
+        when(bookingRepository.findByItemIdAndStatusInAndEndAfter(eq(itemId), anyCollection(),
+                any(LocalDateTime.class))).thenReturn(List.of(stored));
+
+        assertThrows(BookingOverlapException.class, () -> index.reserve(itemId, start, end));
+        assertDoesNotThrow(() -> index.reserve(itemId, end, end.plusDays(1)));
+
+        verify(bookingRepository, times(1))
+                .findByItemIdAndStatusInAndEndAfter(eq(itemId), anyCollection(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void reserve_whenIntervalIsEmpty_thenNothingReserved() {
+        index.reserve(itemId, end, start);
+
+        verify(bookingRepository, never())
+                .findByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any(LocalDateTime.class));
+        assertDoesNotThrow(() -> index.reserve(itemId, start, end));
+    }
+
+    @Test
+    void release_whenItemNeverReserved_thenNothingHappens() {
+        assertDoesNotThrow(() -> index.release(itemId, start));
+    }
+
+    @Test
+    void release_whenLastIntervalReleased_thenItemLoadedAgainOnNextUse() {
+        index.reserve(itemId, start, end);
+        index.release(itemId, start);
+        index.reserve(itemId, start, end);
+
+        verify(bookingRepository, times(2))
+                .findByItemIdAndStatusInAndEndAfter(eq(itemId), anyCollection(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void evictEnded_whenAllIntervalsEnded_thenItemLoadedAgainOnNextUse() {
+        LocalDateTime past = LocalDateTime.now().minusDays(2);
+        index.reserve(itemId, past, past.plusDays(1));
+        index.reserve(2L, start, end);
+
+        index.evictEnded();
+        index.findFreeSlots(itemId, start, end);
+        index.findFreeSlots(2L, start, end);
+
+        verify(bookingRepository, times(2))
+                .findByItemIdAndStatusInAndEndAfter(eq(itemId), anyCollection(), any(LocalDateTime.class));
+        verify(bookingRepository, times(1))
+                .findByItemIdAndStatusInAndEndAfter(eq(2L), anyCollection(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void findFreeSlots_whenNothingReserved_thenWholeWindowReturned() {
+        List<TimeSlotDto> slots = index.findFreeSlots(itemId, start, end);
+
+        assertEquals(List.of(new TimeSlotDto(start, end)), slots);
+    }
+
+    @Test
+    void findFreeSlots_whenIntervalsReserved_thenGapsReturned() {
+        index.reserve(itemId, start.plusHours(1), start.plusHours(2));
+        index.reserve(itemId, start.plusHours(2), start.plusHours(3));
+        index.reserve(itemId, start.plusHours(5), end.plusDays(1));
+
+        List<TimeSlotDto> slots = index.findFreeSlots(itemId, start, end);
+
+        assertEquals(List.of(
+                new TimeSlotDto(start, start.plusHours(1)),
+                new TimeSlotDto(start.plusHours(3), start.plusHours(5))
+        ), slots);
+    }
+
+    @Test
+    void findFreeSlots_whenWindowStartsInsideReserved_thenSlotStartsAtItsEnd() {
+        index.reserve(itemId, start.minusHours(1), start.plusHours(1));
+
+        List<TimeSlotDto> slots = index.findFreeSlots(itemId, start, end);
+
+        assertEquals(List.of(new TimeSlotDto(start.plusHours(1), end)), slots);
+    }
+
+    @Test
+    void findFreeSlots_whenWindowIsEmpty_thenEmptyListReturned() {
+        assertEquals(List.of(), index.findFreeSlots(itemId, end, start));
+        assertEquals(List.of(), index.findFreeSlots(itemId, start.minusYears(2), start.minusYears(1)));
+    }
+}
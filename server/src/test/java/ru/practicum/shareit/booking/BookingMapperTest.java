@@ -4,11 +4,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import ru.practicum.shareit.booking.dto.BookingInfoDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
@@ -30,7 +31,6 @@ public class BookingMapperTest {
 
     BookingResponseDto bookingResponseDto;
     Booking booking;
-    BookingInfoDto bookingInfoDto;
 
     BookingRequestDto bookingRequestDto;
 
@@ -72,12 +72,6 @@ public class BookingMapperTest {
         bookingResponseDto.setStart(start);
         bookingResponseDto.setEnd(end);
 
-        bookingInfoDto = new BookingInfoDto();
-        bookingInfoDto.setId(1L);
-        bookingInfoDto.setStart(start);
-        bookingInfoDto.setEnd(end);
-        bookingInfoDto.setBookerId(booker.getId());
-
         bookingRequestDto = new BookingRequestDto();
         bookingRequestDto.setItemId(item.getId());
         bookingRequestDto.setStart(start);
@@ -101,10 +95,16 @@ public class BookingMapperTest {
     }
 
     @Test
-    void toBookingInfo() {
-        BookingInfoDto result = bookingMapper.toBookingInfo(booking);
-
-        assertEquals(bookingInfoDto, result);
+    void fromArchived() {
+        ArchivedBooking archived = new ArchivedBooking();
+        archived.setId(booking.getId());
+        archived.setStart(booking.getStart());
+        archived.setEnd(booking.getEnd());
+        archived.setItem(booking.getItem());
+        archived.setBooker(booking.getBooker());
+        archived.setStatus(booking.getStatus());
+        booking.setPhase(Phase.PAST);
+
+        assertEquals(booking, bookingMapper.fromArchived(archived));
     }
-
 }
@@ -0,0 +1,140 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Not transactional on purpose: every create commits on its own thread, as it does in production.
+ */
+@SpringBootTest
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class BookingOverlapConcurrencyTest {
+    static final int REQUESTS = 300;
+    static final int THREADS = 32;
+    static final int SLOTS = 60;
+
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    User owner;
+    User booker;
+    Item item;
+
+    @BeforeEach
+    void setUp() {
+        User u = new User();
+        u.setName("concurrencyOwner");
+        u.setEmail("concurrencyOwner@yandex.ru");
+        owner = userRepository.save(u);
+
+        User u2 = new User();
+        u2.setName("concurrencyBooker");
+        u2.setEmail("concurrencyBooker@yandex.ru");
+        booker = userRepository.save(u2);
+
+        Item i = new Item();
+        i.setName("hotItem");
+        i.setDescription("everybody wants it");
+        i.setAvailable(true);
+        i.setOwner(owner);
+        item = itemRepository.save(i);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll(storedBookings());
+        itemRepository.delete(item);
+        userRepository.delete(booker);
+        userRepository.delete(owner);
+    }
+
+    @Test
+    @SneakyThrows
+    void create_whenManyParallelRequestsForSameItem_thenNoOverlappingBookingsStored() {
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        Random random = new Random(42);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Callable<Boolean>> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            LocalDateTime start = base.plusHours(random.nextInt(SLOTS));
+            LocalDateTime end = start.plusHours(1 + random.nextInt(3));
+            requests.add(() -> {
+                startSignal.await();
+                Booking booking = new Booking();
+                booking.setItem(item);
+                booking.setStart(start);
+                booking.setEnd(end);
+                try {
+                    bookingService.create(booking, booker.getId());
+                    return true;
+                } catch (BookingOverlapException e) {
+                    return false;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> results = requests.stream().map(executor::submit).collect(Collectors.toList());
+        startSignal.countDown();
+        long created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        List<Booking> stored = storedBookings();
+        stored.sort(Comparator.comparing(Booking::getStart));
+
+        assertEquals(created, stored.size());
+        assertTrue(created > 0);
+        assertTrue(created < REQUESTS);
+        for (int i = 1; i < stored.size(); i++) {
+            assertFalse(stored.get(i).getStart().isBefore(stored.get(i - 1).getEnd()),
+                    String.format("Bookings %d and %d overlap", stored.get(i - 1).getId(), stored.get(i).getId()));
+        }
+    }
+
+    private List<Booking> storedBookings() {
+        return bookingRepository.findAll().stream()
+                .filter(booking -> booking.getItem().getId().equals(item.getId()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,117 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingPartiesDto;
+import ru.practicum.shareit.booking.dto.FinishedBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingPhaseScheduler;
+import ru.practicum.shareit.booking.service.BookingSummaryCache;
+import ru.practicum.shareit.booking.service.CommentEligibilityCache;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingPhaseSchedulerTest {
+    @Mock
+    BookingRepository bookingRepository;
+    @Mock
+    BookingSummaryCache bookingSummaryCache;
+    @Mock
+    CommentEligibilityCache commentEligibilityCache;
+    @InjectMocks
+    BookingPhaseScheduler scheduler;
+
+    @Test
+    void tick_whenNothingScheduledYet_thenPhasesAdvanced() {
+        scheduler.tick();
+
+        verify(bookingRepository, times(1)).finishDueBookings(any(LocalDateTime.class));
+        verify(bookingRepository, times(1)).startDueBookings(any(LocalDateTime.class));
+    }
+
+    @Test
+    void tick_whenBookingsAdvanced_thenOnlyTheirSummariesEvicted() {
+        when(bookingRepository.findPartiesDueToFinish(any(LocalDateTime.class)))
+                .thenReturn(List.of(new BookingPartiesDto(1L, 2L)));
+        when(bookingRepository.findPartiesDueToStart(any(LocalDateTime.class)))
+                .thenReturn(List.of(new BookingPartiesDto(3L, 2L)));
+        when(bookingRepository.finishDueBookings(any(LocalDateTime.class))).thenReturn(1);
+        when(bookingRepository.startDueBookings(any(LocalDateTime.class))).thenReturn(1);
+
+        scheduler.tick();
+
+        verify(bookingSummaryCache, times(1)).evict(1L, 2L);
+        verify(bookingSummaryCache, times(1)).evict(3L, 2L);
+        verifyNoMoreInteractions(bookingSummaryCache);
+    }
+
+    @Test
+    void tick_whenApprovedBookingsFinished_thenBookersMayComment() {
+        when(bookingRepository.findApprovedDueToFinish(any(LocalDateTime.class)))
+                .thenReturn(List.of(new FinishedBookingDto(1L, 5L)));
+        when(bookingRepository.finishDueBookings(any(LocalDateTime.class))).thenReturn(1);
+
+        scheduler.tick();
+
+        verify(commentEligibilityCache, times(1)).markEligible(1L, 5L);
+        verifyNoMoreInteractions(commentEligibilityCache);
+    }
+
+    @Test
+    void tick_whenNothingAdvanced_thenSummariesKept() {
+        scheduler.tick();
+
+        verifyNoInteractions(bookingSummaryCache);
+        verifyNoInteractions(commentEligibilityCache);
+    }
+
+    @Test
+    void tick_whenNextDueInFuture_thenTableNotTouched() {
+        when(bookingRepository.findNextStart()).thenReturn(LocalDateTime.now().plusDays(1));
+        scheduler.catchUp();
+
+        scheduler.tick();
+
+        verify(bookingRepository, times(1)).finishDueBookings(any(LocalDateTime.class));
+    }
+
+    @Test
+    void tick_whenScheduledBookingStarted_thenPhasesAdvanced() {
+        scheduler.catchUp();
+        Booking booking = new Booking();
+        booking.setPhase(Phase.FUTURE);
+        booking.setStart(LocalDateTime.now().minusSeconds(1));
+        scheduler.schedule(booking);
+
+        scheduler.tick();
+
+        verify(bookingRepository, times(2)).startDueBookings(any(LocalDateTime.class));
+    }
+
+    @Test
+    void schedule_whenBookingPast_thenNothingScheduled() {
+        scheduler.catchUp();
+        Booking booking = new Booking();
+        booking.setPhase(Phase.PAST);
+        booking.setEnd(LocalDateTime.now().minusDays(1));
+        scheduler.schedule(booking);
+
+        scheduler.tick();
+
+        verify(bookingRepository, times(1)).startDueBookings(any(LocalDateTime.class));
+    }
+}
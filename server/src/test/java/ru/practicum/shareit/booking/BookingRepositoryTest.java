@@ -8,7 +8,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.item.model.Item;
@@ -17,9 +21,19 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @FieldDefaults(level = AccessLevel.PRIVATE)
@@ -27,7 +41,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 class BookingRepositoryTest {
 
     final PageRequest pageRequest = PageRequest.of(0, 10);
-    private final LocalDateTime now = LocalDateTime.now();
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     @Autowired
     BookingRepository bookingRepository;
     @Autowired
@@ -35,7 +49,7 @@ class BookingRepositoryTest {
     @Autowired
     UserRepository userRepository;
     List<Booking> expectedBookings;
-    List<Booking> result;
+    List<BookingResponseDto> result;
     User user1;
     User user2;
 
@@ -109,7 +123,41 @@ class BookingRepositoryTest {
 
         result = bookingRepository.findByBookerIdOrderByStartDesc(user2.getId(), pageRequest);
 
-        assertEquals(expectedBookings, result);
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
+    }
+
+    @Test
+    void findByBookerIdOrderByStartDesc_whenStartsEqual_thenPagedByIdDescending() {
+        Booking sameStart = new Booking();
+        sameStart.setStatus(Status.WAITING);
+        sameStart.setStart(bookingFuture.getStart());
+        sameStart.setEnd(bookingFuture.getEnd());
+        sameStart.setItem(bookingCurrent.getItem());
+        sameStart.setBooker(user2);
+        sameStart = bookingRepository.save(sameStart);
+
+        List<Long> pages = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            pages.addAll(responseIds(bookingRepository.findByBookerIdOrderByStartDesc(user2.getId(),
+                    PageRequest.of(page, 1))));
+        }
+
+        assertEquals(List.of(sameStart.getId(), bookingFuture.getId(), bookingCurrent.getId()), pages);
+    }
+
+    @Test
+    void findByBookerIdOrderByStartDesc_thenResponseFieldsSelected() {
+        BookingResponseDto booking = bookingRepository.findByBookerIdOrderByStartDesc(user2.getId(), pageRequest)
+                .get(0);
+
+        assertEquals(bookingFuture.getStart(), booking.getStart());
+        assertEquals(bookingFuture.getEnd(), booking.getEnd());
+        assertEquals(bookingFuture.getStatus(), booking.getStatus());
+        assertEquals(bookingFuture.getItem().getId(), booking.getItem().getId());
+        assertEquals(bookingFuture.getItem().getName(), booking.getItem().getName());
+        assertNull(booking.getItem().getRequestId());
+        assertEquals(user2.getId(), booking.getBooker().getId());
+        assertEquals(user2.getEmail(), booking.getBooker().getEmail());
     }
 
     @Test
@@ -120,41 +168,40 @@ class BookingRepositoryTest {
                 user2.getId(), Status.APPROVED, pageRequest
         );
 
-        assertEquals(expectedBookings, result);
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
     }
 
     @Test
-    void findByBookerIdAndEndIsBeforeOrderByStartDesc_casePast() {
-
+    void findByBookerIdAndPhaseOrderByStartDesc_casePast() {
         expectedBookings = List.of(bookingPast);
 
-        result = bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(
-                user1.getId(), now, pageRequest
+        result = bookingRepository.findByBookerIdAndPhaseOrderByStartDesc(
+                user1.getId(), Phase.PAST, pageRequest
         );
 
-        assertEquals(expectedBookings, result);
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
     }
 
     @Test
-    void findByBookerIdAndStartIsAfterOrderByStartDesc_caseFuture() {
+    void findByBookerIdAndPhaseOrderByStartDesc_caseFuture() {
         expectedBookings = List.of(bookingFuture);
 
-        result = bookingRepository.findByBookerIdAndStartIsAfterOrderByStartDesc(
-                user2.getId(), now, pageRequest
+        result = bookingRepository.findByBookerIdAndPhaseOrderByStartDesc(
+                user2.getId(), Phase.FUTURE, pageRequest
         );
 
-        assertEquals(expectedBookings, result);
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
     }
 
     @Test
-    void findAllByBookerIdAndStartBeforeAndEndAfterOrderByIdAsc_caseCurrent() {
+    void findByBookerIdAndPhaseOrderByIdAsc_caseCurrent() {
         expectedBookings = List.of(bookingCurrent);
 
-        result = bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByIdAsc(
-                user2.getId(), now, now, pageRequest
+        result = bookingRepository.findByBookerIdAndPhaseOrderByIdAsc(
+                user2.getId(), Phase.CURRENT, pageRequest
         );
 
-        assertEquals(expectedBookings, result);
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
     }
 
 
@@ -162,45 +209,242 @@ class BookingRepositoryTest {
     void findByOwnerId() {
         expectedBookings = List.of(bookingFuture, bookingCurrent);
 
-        result = bookingRepository.findByOwnerId(user1, pageRequest);
+        result = bookingRepository.findByOwnerId(user1.getId(), pageRequest);
 
-        assertEquals(expectedBookings, result);
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
     }
 
     @Test
     void findByOwnerIdAndStatus() {
         expectedBookings = List.of(bookingFuture, bookingCurrent);
 
-        result = bookingRepository.findByOwnerIdAndStatus(user1, Status.APPROVED, pageRequest);
+        result = bookingRepository.findByOwnerIdAndStatus(user1.getId(), Status.APPROVED, pageRequest);
 
-        assertEquals(expectedBookings, result);
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
     }
 
     @Test
-    void findByOwnerIdInFuture() {
+    void findByOwnerIdAndPhaseOrderByStartDesc_caseFuture() {
         expectedBookings = List.of(bookingFuture);
 
-        result = bookingRepository.findByOwnerIdInFuture(user1, pageRequest);
+        result = bookingRepository.findByOwnerIdAndPhaseOrderByStartDesc(user1.getId(), Phase.FUTURE, pageRequest);
 
-        assertEquals(expectedBookings, result);
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
     }
 
     @Test
-    void findByOwnerIdInPast() {
+    void findByOwnerIdAndPhaseOrderByStartDesc_casePast() {
         expectedBookings = List.of(bookingPast);
 
-        result = bookingRepository.findByOwnerIdInPast(user2, pageRequest);
+        result = bookingRepository.findByOwnerIdAndPhaseOrderByStartDesc(user2.getId(), Phase.PAST, pageRequest);
+
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
+    }
+
+    @Test
+    void findByOwnerIdAndPhaseOrderByStartDesc_caseCurrent() {
+        expectedBookings = List.of(bookingCurrent);
+
+        result = bookingRepository.findByOwnerIdAndPhaseOrderByStartDesc(user1.getId(), Phase.CURRENT, pageRequest);
+
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
+    }
+
+    @Test
+    void findLastAndNextBookingsByItemIds() {
+        Long futureItemId = bookingFuture.getItem().getId();
+        Long currentItemId = bookingCurrent.getItem().getId();
+
+        Map<Long, ItemBookingView> bookings = bookingRepository
+                .findLastAndNextBookingsByItemIds(List.of(futureItemId, currentItemId)).stream()
+                .collect(Collectors.toMap(ItemBookingView::getItemId, Function.identity()));
+
+        assertEquals(2, bookings.size());
+        assertEquals(bookingFuture.getId(), bookings.get(futureItemId).getId());
+        assertFalse(bookings.get(futureItemId).isPast());
+        assertEquals(bookingCurrent.getId(), bookings.get(currentItemId).getId());
+        assertEquals(user2.getId(), bookings.get(currentItemId).getBookerId());
+        assertTrue(bookings.get(currentItemId).isPast());
+    }
+
+    @Test
+    void findByBookerIdBeforeCursor() {
+        expectedBookings = List.of(bookingCurrent);
+
+        result = bookingRepository.findByBookerIdBeforeCursor(
+                user2.getId(), bookingFuture.getStart(), bookingFuture.getId(), pageRequest
+        );
+
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
+    }
+
+    @Test
+    void findByBookerIdBeforeCursor_whenSameStart_thenSeeksById() {
+        Booking b = new Booking();
+        b.setStatus(Status.WAITING);
+        b.setStart(bookingFuture.getStart());
+        b.setEnd(bookingFuture.getEnd());
+        b.setItem(bookingFuture.getItem());
+        b.setBooker(user2);
+        Booking sameStart = bookingRepository.save(b);
+        expectedBookings = List.of(bookingFuture, bookingCurrent);
+
+        result = bookingRepository.findByBookerIdBeforeCursor(
+                user2.getId(), sameStart.getStart(), sameStart.getId(), pageRequest
+        );
+
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
+    }
+
+    @Test
+    void findByBookerIdAndPhaseAfterCursor() {
+        result = bookingRepository.findByBookerIdAndPhaseAfterCursor(
+                user2.getId(), Phase.CURRENT, bookingCurrent.getId(), pageRequest
+        );
 
-        assertEquals(expectedBookings, result);
+        assertEquals(0, result.size());
     }
 
     @Test
-    void findByOwnerIdInCurrent() {
+    void findByOwnerIdBeforeCursor() {
         expectedBookings = List.of(bookingCurrent);
 
-        result = bookingRepository.findByOwnerIdInCurrent(user1, pageRequest);
+        result = bookingRepository.findByOwnerIdBeforeCursor(
+                user1.getId(), bookingFuture.getStart(), bookingFuture.getId(), PageRequest.of(0, 1)
+        );
+
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
+    }
+
+    @Test
+    void findByOwnerIdAndPhaseBeforeCursor() {
+        expectedBookings = List.of(bookingPast);
+
+        result = bookingRepository.findByOwnerIdAndPhaseBeforeCursor(
+                user2.getId(), Phase.PAST, now, Long.MAX_VALUE, pageRequest
+        );
+
+        assertEquals(bookingIds(expectedBookings), responseIds(result));
+    }
+
+    @Test
+    void countByBookerIdPerState() {
+        assertEquals(new BookingSummaryDto(2L, 1L, 0L, 1L, 0L, 0L),
+                bookingRepository.countByBookerIdPerState(user2.getId()));
+    }
+
+    @Test
+    void countByOwnerIdPerState() {
+        assertEquals(new BookingSummaryDto(1L, 0L, 1L, 0L, 0L, 0L),
+                bookingRepository.countByOwnerIdPerState(user2.getId()));
+        assertEquals(new BookingSummaryDto(0L, 0L, 0L, 0L, 0L, 0L),
+                bookingRepository.countByOwnerIdPerState(Long.MAX_VALUE));
+    }
+
+    @Test
+    void findItemIdById() {
+        assertEquals(Optional.of(bookingPast.getItem().getId()), bookingRepository.findItemIdById(bookingPast.getId()));
+        assertEquals(Optional.empty(), bookingRepository.findItemIdById(Long.MAX_VALUE));
+    }
+
+    @Test
+    void streamByBookerId() {
+        try (Stream<BookingResponseDto> bookings = bookingRepository.streamByBookerId(user2.getId())) {
+            assertEquals(bookingIds(List.of(bookingFuture, bookingCurrent)),
+                    responseIds(bookings.collect(Collectors.toList())));
+        }
+    }
+
+    @Test
+    void streamByOwnerId() {
+        try (Stream<BookingResponseDto> bookings = bookingRepository.streamByOwnerId(user2.getId())) {
+            assertEquals(bookingIds(List.of(bookingPast)), responseIds(bookings.collect(Collectors.toList())));
+        }
+    }
+
+    @Test
+    void updateStatusIfWaiting() {
+        Booking b = new Booking();
+        b.setStatus(Status.WAITING);
+        b.setStart(now.plusDays(30));
+        b.setEnd(now.plusDays(31));
+        b.setItem(bookingFuture.getItem());
+        b.setBooker(user2);
+        Booking waiting = bookingRepository.save(b);
+
+        assertEquals(1, bookingRepository.updateStatusIfWaiting(waiting.getId(), Status.APPROVED));
+        assertEquals(0, bookingRepository.updateStatusIfWaiting(waiting.getId(), Status.REJECTED));
+        assertEquals(0, bookingRepository.updateStatusIfWaiting(bookingFuture.getId(), Status.REJECTED));
+    }
+
+    @Test
+    void findAllByIdInAndOwnerId() {
+        List<Booking> result = bookingRepository.findAllByIdInAndOwnerId(
+                List.of(bookingFuture.getId(), bookingCurrent.getId(), bookingPast.getId()), user1.getId());
+
+        assertEquals(2, result.size());
+        assertTrue(result.stream().noneMatch(b -> b.getId() == bookingPast.getId()));
+    }
+
+    @Test
+    void updateAllStatusesIfWaiting() {
+        Booking b = new Booking();
+        b.setStatus(Status.WAITING);
+        b.setStart(now.plusDays(30));
+        b.setEnd(now.plusDays(31));
+        b.setItem(bookingFuture.getItem());
+        b.setBooker(user2);
+        Booking waiting = bookingRepository.save(b);
+
+        assertEquals(1, bookingRepository.updateAllStatusesIfWaiting(
+                List.of(waiting.getId(), bookingFuture.getId()), Status.REJECTED));
+        assertEquals(0, bookingRepository.updateAllStatusesIfWaiting(List.of(waiting.getId()), Status.APPROVED));
+    }
+
+    @Test
+    void save_thenOwnerIdCopiedFromItem() {
+        assertEquals(user1.getId(), bookingFuture.getOwnerId());
+        assertEquals(user2.getId(), bookingPast.getOwnerId());
+    }
+
+    @Test
+    void save_thenPhaseSetFromDates() {
+        assertEquals(Phase.FUTURE, bookingFuture.getPhase());
+        assertEquals(Phase.CURRENT, bookingCurrent.getPhase());
+        assertEquals(Phase.PAST, bookingPast.getPhase());
+    }
+
+    @Test
+    void startDueBookings() {
+        assertEquals(1, bookingRepository.startDueBookings(now.plusDays(10)));
+        assertEquals(0, bookingRepository.startDueBookings(now.plusDays(10)));
+        assertEquals(bookingIds(List.of(bookingFuture, bookingCurrent)), responseIds(
+                bookingRepository.findByBookerIdAndPhaseOrderByIdAsc(user2.getId(), Phase.CURRENT, pageRequest)));
+    }
 
-        assertEquals(expectedBookings, result);
+    @Test
+    void finishDueBookings() {
+        assertEquals(2, bookingRepository.finishDueBookings(now.plusDays(20)));
+        assertEquals(bookingIds(List.of(bookingFuture, bookingCurrent)), responseIds(
+                bookingRepository.findByBookerIdAndPhaseOrderByStartDesc(user2.getId(), Phase.PAST, pageRequest)));
     }
 
-}
\ No newline at end of file
+    @Test
+    void findNextStartAndEnd() {
+        assertEquals(bookingFuture.getStart(), bookingRepository.findNextStart());
+        assertEquals(bookingCurrent.getEnd(), bookingRepository.findNextEnd());
+
+        bookingRepository.finishDueBookings(now.plusDays(20));
+
+        assertNull(bookingRepository.findNextStart());
+        assertNull(bookingRepository.findNextEnd());
+    }
+
+    private static List<Long> bookingIds(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getId).collect(Collectors.toList());
+    }
+
+    private static List<Long> responseIds(List<BookingResponseDto> bookings) {
+        return bookings.stream().map(BookingResponseDto::getId).collect(Collectors.toList());
+    }
+}
@@ -7,14 +7,34 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.booking.exception.BookingNotFoundException;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
+import ru.practicum.shareit.booking.exception.BookingWrongCursorException;
 import ru.practicum.shareit.booking.exception.BookingWrongStateRequestedException;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.booking.service.BookingPhaseScheduler;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.BookingSummaryCache;
+import ru.practicum.shareit.booking.service.BookingWriteLanes;
+import ru.practicum.shareit.booking.service.CommentEligibilityCache;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.exception.ItemNotAvailableException;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.model.Item;
@@ -23,10 +43,19 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -39,11 +68,23 @@ class BookingServiceImplTest {
     @Mock
     BookingRepository bookingRepository;
     @Mock
+    ArchivedBookingRepository archivedBookingRepository;
+    @Mock
     UserService userService;
     @Mock
     ItemService itemService;
     @Mock
     BookingMapper bookingMapper;
+    @Mock
+    BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    CommentEligibilityCache commentEligibilityCache;
+    @Mock
+    BookingPhaseScheduler bookingPhaseScheduler;
+    @Mock
+    BookingSummaryCache bookingSummaryCache;
+    @Mock
+    BookingWriteLanes bookingWriteLanes;
     @InjectMocks
     BookingServiceImpl service;
     User user1;
@@ -51,10 +92,13 @@ class BookingServiceImplTest {
     Item item1;
     Booking booking1;
     Booking booking2;
+    String cursor;
 
     @BeforeEach
     void initialize() {
         LocalDateTime now = LocalDateTime.now();
+        when(bookingWriteLanes.submit(any(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(1).get());
 
         user1 = new User();
         user1.setId(userId);
@@ -86,6 +130,8 @@ class BookingServiceImplTest {
         booking2.setStatus(Status.WAITING);
         booking2.setItem(item1);
         booking2.setBooker(user1);
+
+        cursor = new BookingCursor(now, 1L).encode();
     }
 
     @Test
@@ -101,10 +147,141 @@ class BookingServiceImplTest {
         verify(userService, times(1)).findById(userId);
         verify(itemService, times(1)).findById(itemId);
         verify(bookingRepository, times(1)).save(booking2);
+        verify(bookingPhaseScheduler, times(1)).schedule(booking2);
+        verify(bookingSummaryCache, times(1)).evict(userId, user2.getId());
 
         assertEquals(expectedBooking, result);
     }
 
+    @Test
+    void create_whenTransactionRolledBackAfterSave_thenReservationReleased() {
+        when(userService.findById(userId)).thenReturn(user1);
+        when(itemService.findById(itemId)).thenReturn(item1);
+        when(bookingRepository.save(booking1)).thenReturn(booking2);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.create(booking1, userId);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            verify(bookingIntervalIndex, never()).release(anyLong(), any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            verify(bookingIntervalIndex, times(1)).release(itemId, booking1.getStart());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void create_whenIntervalAlreadyReserved_thenBookingOverlapThrown() {
+        when(userService.findById(userId)).thenReturn(user1);
+        when(itemService.findById(itemId)).thenReturn(item1);
+        doThrow(new BookingOverlapException("overlap"))
+                .when(bookingIntervalIndex).reserve(itemId, booking1.getStart(), booking1.getEnd());
+
+        assertThrows(BookingOverlapException.class, () -> service.create(booking1, userId));
+
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void create_whenDatabaseRejectsOverlap_thenReservationReleasedAndBookingOverlapThrown() {
+        when(userService.findById(userId)).thenReturn(user1);
+        when(itemService.findById(itemId)).thenReturn(item1);
+        when(bookingRepository.save(any(Booking.class))).thenThrow(new DataIntegrityViolationException("overlap"));
+
+        assertThrows(BookingOverlapException.class, () -> service.create(booking1, userId));
+
+        verify(bookingIntervalIndex, times(1)).reserve(itemId, booking1.getStart(), booking1.getEnd());
+        verify(bookingIntervalIndex, times(1)).release(itemId, booking1.getStart());
+    }
+
+    @Test
+    void create_whenSaveFails_thenReservationReleased() {
+        when(userService.findById(userId)).thenReturn(user1);
+        when(itemService.findById(itemId)).thenReturn(item1);
+        when(bookingRepository.save(any(Booking.class))).thenThrow(new IllegalStateException("failure"));
+
+        assertThrows(IllegalStateException.class, () -> service.create(booking1, userId));
+
+        verify(bookingIntervalIndex, times(1)).release(itemId, booking1.getStart());
+    }
+
+    @Test
+    void createAll_whenSomeEntriesInvalid_thenPerEntryResultsReturned() {
+        Item missing = new Item();
+        missing.setId(99L);
+        Booking unknownItem = new Booking();
+        unknownItem.setItem(missing);
+        Booking overlapping = new Booking();
+        overlapping.setStart(booking1.getStart().plusHours(1));
+        overlapping.setEnd(booking1.getEnd());
+        overlapping.setItem(item1);
+        BookingResponseDto response = new BookingResponseDto();
+
+        when(userService.findById(userId)).thenReturn(user1);
+        when(itemService.findAllByIds(anyCollection())).thenReturn(List.of(item1));
+        doThrow(new BookingOverlapException("overlap"))
+                .when(bookingIntervalIndex).reserve(itemId, overlapping.getStart(), overlapping.getEnd());
+        when(bookingMapper.toBookingResponse(booking1)).thenReturn(response);
+
+        List<BookingBatchResultDto> result = service.createAll(List.of(booking1, unknownItem, overlapping), userId);
+
+        assertEquals(List.of(
+                new BookingBatchResultDto(0, response, null),
+                new BookingBatchResultDto(1, null, "Item with id 99 not found"),
+                new BookingBatchResultDto(2, null, "overlap")
+        ), result);
+        verify(userService, times(1)).findById(userId);
+        verify(itemService, times(1)).findAllByIds(anyCollection());
+        verify(itemService, never()).findById(anyLong());
+        verify(bookingRepository, times(1)).saveAll(List.of(booking1));
+    }
+
+    @Test
+    void createAll_whenDatabaseRejectsOverlap_thenReservationsReleasedAndBookingOverlapThrown() {
+        when(userService.findById(userId)).thenReturn(user1);
+        when(itemService.findAllByIds(anyCollection())).thenReturn(List.of(item1));
+        when(bookingRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("overlap"));
+
+        assertThrows(BookingOverlapException.class, () -> service.createAll(List.of(booking1), userId));
+
+        verify(bookingIntervalIndex, times(1)).release(itemId, booking1.getStart());
+    }
+
+    @Test
+    void createAll_whenEntryFailsUnexpectedly_thenEarlierReservationsReleased() {
+        Booking failing = new Booking();
+        failing.setStart(booking1.getStart().plusDays(5));
+        failing.setEnd(booking1.getEnd().plusDays(5));
+        failing.setItem(item1);
+
+        when(userService.findById(userId)).thenReturn(user1);
+        when(itemService.findAllByIds(anyCollection())).thenReturn(List.of(item1));
+        doThrow(new IllegalStateException("failure"))
+                .when(bookingIntervalIndex).reserve(itemId, failing.getStart(), failing.getEnd());
+
+        assertThrows(IllegalStateException.class, () -> service.createAll(List.of(booking1, failing), userId));
+
+        verify(bookingIntervalIndex, times(1)).release(itemId, booking1.getStart());
+        verify(bookingIntervalIndex, never()).release(itemId, failing.getStart());
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createAll_whenOwnerTryToBook_thenEntryRefused() {
+        when(userService.findById(userId)).thenReturn(user2);
+        when(itemService.findAllByIds(anyCollection())).thenReturn(List.of(item1));
+
+        List<BookingBatchResultDto> result = service.createAll(List.of(booking1), userId);
+
+        assertEquals("Owner can't book the item he owns", result.get(0).getError());
+        assertNull(result.get(0).getBooking());
+        verify(bookingIntervalIndex, never()).reserve(anyLong(), any(), any());
+    }
+
     @Test
     void create_whenOwnerTryToBook_thenItemNotFoundThrown() {
         when(userService.findById(userId)).thenReturn(user2);
@@ -135,15 +312,16 @@ class BookingServiceImplTest {
         expectedBooking.setStatus(Status.APPROVED);
         expectedBooking.setBooker(user1);
 
-        when(itemService.findById(itemId)).thenReturn(item1);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking2));
-        when(bookingRepository.save(expectedBooking)).thenReturn(expectedBooking);
+        when(bookingRepository.updateStatusIfWaiting(1L, Status.APPROVED)).thenReturn(1);
 
         Booking result = service.approve(1L, item1.getOwner().getId(), true);
 
-        verify(itemService, times(1)).findById(itemId);
+        verify(itemService, never()).findById(anyLong());
         verify(bookingRepository, times(1)).findById(anyLong());
-        verify(bookingRepository, times(1)).save(expectedBooking);
+        verify(bookingRepository, times(1)).updateStatusIfWaiting(1L, Status.APPROVED);
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingSummaryCache, times(1)).evict(userId, item1.getOwner().getId());
 
         assertEquals(expectedBooking, result);
 
@@ -155,19 +333,45 @@ class BookingServiceImplTest {
         expectedBooking.setStatus(Status.REJECTED);
         expectedBooking.setBooker(user1);
 
-        when(itemService.findById(itemId)).thenReturn(item1);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking2));
-        when(bookingRepository.save(expectedBooking)).thenReturn(expectedBooking);
+        when(bookingRepository.updateStatusIfWaiting(1L, Status.REJECTED)).thenReturn(1);
 
         Booking result = service.approve(1L, item1.getOwner().getId(), false);
 
-        verify(itemService, times(1)).findById(itemId);
+        verify(itemService, never()).findById(anyLong());
         verify(bookingRepository, times(1)).findById(anyLong());
-        verify(bookingRepository, times(1)).save(expectedBooking);
+        verify(bookingRepository, times(1)).updateStatusIfWaiting(1L, Status.REJECTED);
+        verify(bookingIntervalIndex, times(1)).release(itemId, booking2.getStart());
 
         assertEquals(expectedBooking, result);
     }
 
+    @Test
+    void findSummaryByUserId_thenLoadedThroughCache() {
+        BookingSummaryDto summary = new BookingSummaryDto(1L, 0L, 0L, 1L, 1L, 0L);
+        when(userService.findById(userId)).thenReturn(user1);
+        when(bookingRepository.countByBookerIdPerState(userId)).thenReturn(summary);
+        when(archivedBookingRepository.countByBookerIdPerState(userId))
+                .thenReturn(new BookingSummaryDto(0L, 0L, 0L, 0L, 0L, 0L));
+        when(bookingSummaryCache.findByBookerId(eq(userId), any())).thenAnswer(invocation ->
+                invocation.<Supplier<BookingSummaryDto>>getArgument(1).get());
+
+        assertEquals(summary, service.findSummaryByUserId(userId));
+    }
+
+    @Test
+    void findSummaryByOwnerId_whenBookingsArchived_thenCountedAsAllAndPast() {
+        when(userService.findById(userId)).thenReturn(user1);
+        when(bookingRepository.countByOwnerIdPerState(userId))
+                .thenReturn(new BookingSummaryDto(2L, 1L, 0L, 1L, 1L, 0L));
+        when(archivedBookingRepository.countByOwnerIdPerState(userId))
+                .thenReturn(new BookingSummaryDto(3L, 0L, 3L, 0L, 0L, 0L));
+        when(bookingSummaryCache.findByOwnerId(eq(userId), any())).thenAnswer(invocation ->
+                invocation.<Supplier<BookingSummaryDto>>getArgument(1).get());
+
+        assertEquals(new BookingSummaryDto(5L, 1L, 3L, 1L, 1L, 0L), service.findSummaryByOwnerId(userId));
+    }
+
     @Test
     void approve_whenStatusNotWaiting_thenItemNotAvailableThrown() {
         booking2.setStatus(Status.REJECTED);
@@ -178,17 +382,103 @@ class BookingServiceImplTest {
                 () -> service.approve(1L, item1.getOwner().getId(), false));
 
         assertEquals("The booking is not in WAITING status", e.getMessage());
+        verify(bookingRepository, never()).updateStatusIfWaiting(anyLong(), any(Status.class));
+    }
+
+    @Test
+    void approve_whenDecidedConcurrently_thenItemNotAvailableThrown() {
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking2));
+        when(bookingRepository.updateStatusIfWaiting(1L, Status.APPROVED)).thenReturn(0);
+
+        ItemNotAvailableException e = assertThrows(ItemNotAvailableException.class,
+                () -> service.approve(1L, item1.getOwner().getId(), true));
+
+        assertEquals("The booking is not in WAITING status", e.getMessage());
+        assertEquals(Status.WAITING, booking2.getStatus());
     }
 
     @Test
     void approve_whenNotOwnerTryToSetStatus_thenItemNotAvailableThrown() {
-        when(itemService.findById(itemId)).thenReturn(item1);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking2));
 
         ItemNotFoundException e = assertThrows(ItemNotFoundException.class,
                 () -> service.approve(1L, 10L, false));
 
         assertEquals("Item with id 1 does not belong to user with id 10", e.getMessage());
+        verify(bookingRepository, never()).updateStatusIfWaiting(anyLong(), any(Status.class));
+    }
+
+    @Test
+    void approveAll_whenAllValid_thenStatusesUpdatedPerOutcome() {
+        Booking booking3 = new Booking();
+        booking3.setId(3L);
+        booking3.setStart(booking2.getStart().plusDays(2));
+        booking3.setStatus(Status.WAITING);
+        booking3.setItem(item1);
+        booking3.setBooker(user1);
+
+        when(bookingRepository.findAllByIdInAndOwnerId(Set.of(1L, 3L), user2.getId()))
+                .thenReturn(List.of(booking2, booking3));
+        when(bookingRepository.updateAllStatusesIfWaiting(List.of(1L), Status.APPROVED)).thenReturn(1);
+        when(bookingRepository.updateAllStatusesIfWaiting(List.of(3L), Status.REJECTED)).thenReturn(1);
+
+        List<Booking> result = service.approveAll(Map.of(1L, true, 3L, false), user2.getId());
+
+        assertEquals(List.of(booking2, booking3), result);
+        assertEquals(Status.APPROVED, booking2.getStatus());
+        assertEquals(Status.REJECTED, booking3.getStatus());
+        verify(bookingIntervalIndex, times(1)).release(itemId, booking3.getStart());
+        verify(bookingIntervalIndex, never()).release(itemId, booking2.getStart());
+        verify(bookingRepository, never()).findById(anyLong());
+        verify(bookingSummaryCache, times(2)).evict(userId, user2.getId());
+    }
+
+    @Test
+    void approveAll_whenInTransaction_thenIntervalReleasedAfterCommit() {
+        when(bookingRepository.findAllByIdInAndOwnerId(Set.of(1L), user2.getId())).thenReturn(List.of(booking2));
+        when(bookingRepository.updateAllStatusesIfWaiting(List.of(1L), Status.REJECTED)).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.approveAll(Map.of(1L, false), user2.getId());
+
+            verify(bookingIntervalIndex, never()).release(anyLong(), any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(bookingIntervalIndex, times(1)).release(itemId, booking2.getStart());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void approveAll_whenBookingNotOwned_thenItemNotFoundThrown() {
+        when(bookingRepository.findAllByIdInAndOwnerId(Set.of(1L, 3L), user2.getId()))
+                .thenReturn(List.of(booking2));
+
+        assertThrows(ItemNotFoundException.class,
+                () -> service.approveAll(Map.of(1L, true, 3L, false), user2.getId()));
+
+        verify(bookingRepository, never()).updateAllStatusesIfWaiting(anyCollection(), any());
+    }
+
+    @Test
+    void approveAll_whenStatusNotWaiting_thenItemNotAvailableThrown() {
+        booking2.setStatus(Status.APPROVED);
+        when(bookingRepository.findAllByIdInAndOwnerId(Set.of(1L), user2.getId())).thenReturn(List.of(booking2));
+
+        assertThrows(ItemNotAvailableException.class, () -> service.approveAll(Map.of(1L, true), user2.getId()));
+
+        verify(bookingRepository, never()).updateAllStatusesIfWaiting(anyCollection(), any());
+    }
+
+    @Test
+    void approveAll_whenDecidedConcurrently_thenItemNotAvailableThrown() {
+        when(bookingRepository.findAllByIdInAndOwnerId(Set.of(1L), user2.getId())).thenReturn(List.of(booking2));
+        when(bookingRepository.updateAllStatusesIfWaiting(List.of(1L), Status.APPROVED)).thenReturn(0);
+
+        assertThrows(ItemNotAvailableException.class, () -> service.approveAll(Map.of(1L, true), user2.getId()));
+
+        verify(bookingIntervalIndex, never()).release(anyLong(), any());
     }
 
     @Test
@@ -268,34 +558,98 @@ class BookingServiceImplTest {
     }
 
     @Test
-    void findByUserIdAndState_whenCaseFuture_thenInvokedFindByBookerIdAndStartIsAfterOrderByStartDescMethod() {
+    void findByUserIdAndState_whenCaseFuture_thenInvokedFindByBookerIdAndPhaseOrderByStartDescMethod() {
         when(userService.findById(userId)).thenReturn(user1);
 
         service.findByUserIdAndState(userId, "FUTURE", 0, 10);
 
         verify(bookingRepository, times(1))
-                .findByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(LocalDateTime.class), any(Pageable.class));
+                .findByBookerIdAndPhaseOrderByStartDesc(anyLong(), eq(Phase.FUTURE), any(Pageable.class));
     }
 
     @Test
-    void findByUserIdAndState_whenCasePast_thenInvokedFindByBookerIdAndEndIsBeforeOrderByStartDescMethod() {
+    void findByUserIdAndState_whenCasePast_thenInvokedFindByBookerIdAndPhaseOrderByStartDescMethod() {
         when(userService.findById(userId)).thenReturn(user1);
 
         service.findByUserIdAndState(userId, "PAST", 0, 10);
 
         verify(bookingRepository, times(1))
-                .findByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(LocalDateTime.class), any(Pageable.class));
+                .findByBookerIdAndPhaseOrderByStartDesc(anyLong(), eq(Phase.PAST), any(Pageable.class));
     }
 
     @Test
-    void findByUserIdAndState_whenCasePast_thenInvokedFindAllByBookerIdAndStartBeforeAndEndAfterOrderByIdAscMethod() {
+    void findByUserIdAndState_whenPastBookingsArchived_thenMergedNewestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        BookingResponseDto newest = new BookingResponseDto();
+        newest.setId(1L);
+        newest.setStart(now.minusDays(10));
+        BookingResponseDto oldest = new BookingResponseDto();
+        oldest.setId(2L);
+        oldest.setStart(now.minusDays(30));
+        BookingResponseDto archived = new BookingResponseDto();
+        archived.setId(3L);
+        archived.setStart(now.minusDays(20));
+
+        when(userService.findById(userId)).thenReturn(user1);
+        when(archivedBookingRepository.findByBookerId(userId, PageRequest.of(0, 2))).thenReturn(List.of(archived));
+        when(bookingRepository.findByBookerIdAndPhaseOrderByStartDesc(userId, Phase.PAST, PageRequest.of(0, 2)))
+                .thenReturn(List.of(newest, oldest));
+
+        assertEquals(List.of(newest, archived), service.findByUserIdAndState(userId, "PAST", 0, 2));
+    }
+
+    @Test
+    void findByUserIdAndState_whenBookingsArchivedAndOffsetPastFirstPage_thenMergedAndSkipped() {
+        LocalDateTime now = LocalDateTime.now();
+        BookingResponseDto newest = new BookingResponseDto();
+        newest.setId(1L);
+        newest.setStart(now.minusDays(10));
+        BookingResponseDto oldest = new BookingResponseDto();
+        oldest.setId(2L);
+        oldest.setStart(now.minusDays(30));
+        BookingResponseDto archived = new BookingResponseDto();
+        archived.setId(3L);
+        archived.setStart(now.minusDays(20));
+
+        when(userService.findById(userId)).thenReturn(user1);
+        when(archivedBookingRepository.findByBookerId(userId, PageRequest.of(0, 4))).thenReturn(List.of(archived));
+        when(bookingRepository.findByBookerIdOrderByStartDesc(userId, PageRequest.of(0, 4)))
+                .thenReturn(List.of(newest, oldest));
+
+        assertEquals(List.of(oldest), service.findByUserIdAndState(userId, "ALL", 2, 2));
+    }
+
+    @Test
+    void exportByOwnerId_whenBookingsArchived_thenMergedNewestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        BookingResponseDto newest = new BookingResponseDto();
+        newest.setId(1L);
+        newest.setStart(now.minusDays(10));
+        BookingResponseDto oldest = new BookingResponseDto();
+        oldest.setId(2L);
+        oldest.setStart(now.minusDays(30));
+        BookingResponseDto archived = new BookingResponseDto();
+        archived.setId(3L);
+        archived.setStart(now.minusDays(20));
+
+        when(userService.findById(userId)).thenReturn(user1);
+        when(bookingRepository.streamByOwnerId(userId)).thenReturn(Stream.of(newest, oldest));
+        when(archivedBookingRepository.streamByOwnerId(userId)).thenReturn(Stream.of(archived));
+        List<BookingResponseDto> exported = new ArrayList<>();
+
+        service.exportByOwnerId(userId, exported::add);
+
+        assertEquals(List.of(newest, archived, oldest), exported);
+    }
+
+    @Test
+    void findByUserIdAndState_whenCaseCurrent_thenInvokedFindByBookerIdAndPhaseOrderByIdAscMethod() {
         when(userService.findById(userId)).thenReturn(user1);
 
         service.findByUserIdAndState(userId, "CURRENT", 0, 10);
 
         verify(bookingRepository, times(1))
-                .findAllByBookerIdAndStartBeforeAndEndAfterOrderByIdAsc(
-                        anyLong(), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class));
+                .findByBookerIdAndPhaseOrderByIdAsc(anyLong(), eq(Phase.CURRENT), any(Pageable.class));
     }
 
     @Test
@@ -336,37 +690,37 @@ class BookingServiceImplTest {
         service.findByOwnerIdAndState(userId, "ALL", 0, 10);
 
         verify(bookingRepository, times(1))
-                .findByOwnerId(any(User.class), any(Pageable.class));
+                .findByOwnerId(anyLong(), any(Pageable.class));
     }
 
     @Test
-    void findByOwnerIdAndState_whenCaseFuture_thenInvokedFindByOwnerIdInFutureMethod() {
+    void findByOwnerIdAndState_whenCaseFuture_thenInvokedFindByOwnerIdAndPhaseOrderByStartDescMethod() {
         when(userService.findById(userId)).thenReturn(user1);
 
         service.findByOwnerIdAndState(userId, "FUTURE", 0, 10);
 
         verify(bookingRepository, times(1))
-                .findByOwnerIdInFuture(any(User.class), any(Pageable.class));
+                .findByOwnerIdAndPhaseOrderByStartDesc(anyLong(), eq(Phase.FUTURE), any(Pageable.class));
     }
 
     @Test
-    void findByOwnerIdAndState_whenCasePast_thenInvokedFindByOwnerIdInPastMethod() {
+    void findByOwnerIdAndState_whenCasePast_thenInvokedFindByOwnerIdAndPhaseOrderByStartDescMethod() {
         when(userService.findById(userId)).thenReturn(user1);
 
         service.findByOwnerIdAndState(userId, "PAST", 0, 10);
 
         verify(bookingRepository, times(1))
-                .findByOwnerIdInPast(any(User.class), any(Pageable.class));
+                .findByOwnerIdAndPhaseOrderByStartDesc(anyLong(), eq(Phase.PAST), any(Pageable.class));
     }
 
     @Test
-    void findByOwnerIdAndState_whenCaseCurrent_thenInvokedFindByOwnerIdInCurrentMethod() {
+    void findByOwnerIdAndState_whenCaseCurrent_thenInvokedFindByOwnerIdAndPhaseOrderByStartDescMethod() {
         when(userService.findById(userId)).thenReturn(user1);
 
         service.findByOwnerIdAndState(userId, "CURRENT", 0, 10);
 
         verify(bookingRepository, times(1))
-                .findByOwnerIdInCurrent(any(User.class), any(Pageable.class));
+                .findByOwnerIdAndPhaseOrderByStartDesc(anyLong(), eq(Phase.CURRENT), any(Pageable.class));
     }
 
     @Test
@@ -376,7 +730,7 @@ class BookingServiceImplTest {
         service.findByOwnerIdAndState(userId, "WAITING", 0, 10);
 
         verify(bookingRepository, times(1))
-                .findByOwnerIdAndStatus(any(User.class), any(Status.class), any(Pageable.class));
+                .findByOwnerIdAndStatus(anyLong(), any(Status.class), any(Pageable.class));
     }
 
     @Test
@@ -386,23 +740,115 @@ class BookingServiceImplTest {
         service.findByOwnerIdAndState(userId, "REJECTED", 0, 10);
 
         verify(bookingRepository, times(1))
-                .findByOwnerIdAndStatus(any(User.class), any(Status.class), any(Pageable.class));
+                .findByOwnerIdAndStatus(anyLong(), any(Status.class), any(Pageable.class));
     }
 
     @Test
-    void findLastBookingByItemId() {
-        service.findLastBookingByItemId(itemId);
+    void findByUserIdAndStateAfterCursor_whenCaseAll_thenInvokedFindByBookerIdBeforeCursorMethod() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        service.findByUserIdAndStateAfterCursor(userId, "ALL", cursor, 10);
 
-        verify(bookingMapper, times(1)).toBookingInfo(any());
-        verify(bookingRepository, times(1)).findLastBookingByItemId(anyLong());
+        verify(bookingRepository, times(1))
+                .findByBookerIdBeforeCursor(anyLong(), any(LocalDateTime.class), anyLong(), any(Pageable.class));
     }
 
     @Test
-    void findNextBookingByItemId() {
-        service.findNextBookingByItemId(itemId);
+    void findByUserIdAndStateAfterCursor_whenCaseFuture_thenInvokedFindByBookerIdAndPhaseBeforeCursorMethod() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        service.findByUserIdAndStateAfterCursor(userId, "FUTURE", cursor, 10);
 
-        verify(bookingMapper, times(1)).toBookingInfo(any());
-        verify(bookingRepository, times(1)).findNextBookingByItemId(anyLong());
+        verify(bookingRepository, times(1)).findByBookerIdAndPhaseBeforeCursor(
+                anyLong(), eq(Phase.FUTURE), any(LocalDateTime.class), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void findByUserIdAndStateAfterCursor_whenCasePast_thenInvokedFindByBookerIdAndPhaseBeforeCursorMethod() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        service.findByUserIdAndStateAfterCursor(userId, "PAST", cursor, 10);
+
+        verify(bookingRepository, times(1)).findByBookerIdAndPhaseBeforeCursor(
+                anyLong(), eq(Phase.PAST), any(LocalDateTime.class), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void findByUserIdAndStateAfterCursor_whenCaseCurrent_thenInvokedFindByBookerIdAndPhaseAfterCursorMethod() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        service.findByUserIdAndStateAfterCursor(userId, "CURRENT", cursor, 10);
+
+        verify(bookingRepository, times(1)).findByBookerIdAndPhaseAfterCursor(
+                anyLong(), eq(Phase.CURRENT), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void findByUserIdAndStateAfterCursor_whenCaseWaiting_thenInvokedFindByBookerIdAndStatusBeforeCursorMethod() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        service.findByUserIdAndStateAfterCursor(userId, "WAITING", cursor, 10);
+
+        verify(bookingRepository, times(1)).findByBookerIdAndStatusBeforeCursor(
+                anyLong(), any(Status.class), any(LocalDateTime.class), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void findByUserIdAndStateAfterCursor_whenCursorInvalid_thenBookingWrongCursorThrown() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        assertThrows(BookingWrongCursorException.class,
+                () -> service.findByUserIdAndStateAfterCursor(userId, "ALL", "not a cursor", 10));
+    }
+
+    @Test
+    void findByOwnerIdAndStateAfterCursor_whenCaseAll_thenInvokedFindByOwnerIdBeforeCursorMethod() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        service.findByOwnerIdAndStateAfterCursor(userId, "ALL", cursor, 10);
+
+        verify(bookingRepository, times(1))
+                .findByOwnerIdBeforeCursor(anyLong(), any(LocalDateTime.class), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void findByOwnerIdAndStateAfterCursor_whenCaseFuture_thenInvokedFindByOwnerIdAndPhaseBeforeCursorMethod() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        service.findByOwnerIdAndStateAfterCursor(userId, "FUTURE", cursor, 10);
+
+        verify(bookingRepository, times(1)).findByOwnerIdAndPhaseBeforeCursor(
+                anyLong(), eq(Phase.FUTURE), any(LocalDateTime.class), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void findByOwnerIdAndStateAfterCursor_whenCasePast_thenInvokedFindByOwnerIdAndPhaseBeforeCursorMethod() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        service.findByOwnerIdAndStateAfterCursor(userId, "PAST", cursor, 10);
+
+        verify(bookingRepository, times(1)).findByOwnerIdAndPhaseBeforeCursor(
+                anyLong(), eq(Phase.PAST), any(LocalDateTime.class), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void findByOwnerIdAndStateAfterCursor_whenCaseCurrent_thenInvokedFindByOwnerIdAndPhaseBeforeCursorMethod() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        service.findByOwnerIdAndStateAfterCursor(userId, "CURRENT", cursor, 10);
+
+        verify(bookingRepository, times(1)).findByOwnerIdAndPhaseBeforeCursor(
+                anyLong(), eq(Phase.CURRENT), any(LocalDateTime.class), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void findByOwnerIdAndStateAfterCursor_whenCaseRejected_thenInvokedFindByOwnerIdAndStatusBeforeCursorMethod() {
+        when(userService.findById(userId)).thenReturn(user1);
+
+        service.findByOwnerIdAndStateAfterCursor(userId, "REJECTED", cursor, 10);
+
+        verify(bookingRepository, times(1)).findByOwnerIdAndStatusBeforeCursor(
+                anyLong(), any(Status.class), any(LocalDateTime.class), anyLong(), any(Pageable.class));
     }
 
     @Test
@@ -410,8 +856,70 @@ class BookingServiceImplTest {
         service.hasUserBookedItem(userId, itemId);
 
         verify(bookingRepository, times(1))
-                .findByBookerIdAndItemIdAndEndIsBeforeAndStatusOrderByStartDesc(
+                .existsByBookerIdAndItemIdAndEndIsBeforeAndStatus(
                         anyLong(), anyLong(), any(LocalDateTime.class), any(Status.class)
                 );
+        verify(commentEligibilityCache, never()).markEligible(anyLong(), anyLong());
+    }
+
+    @Test
+    void hasUserBookedItem_whenBooked_thenRememberedInCache() {
+        when(bookingRepository.existsByBookerIdAndItemIdAndEndIsBeforeAndStatus(
+                eq(userId), eq(itemId), any(LocalDateTime.class), eq(Status.APPROVED))).thenReturn(true);
+
+        assertTrue(service.hasUserBookedItem(userId, itemId));
+
+        verify(commentEligibilityCache, times(1)).markEligible(userId, itemId);
+    }
+
+    @Test
+    void hasUserBookedItem_whenBookingArchived_thenTrue() {
+        when(archivedBookingRepository.existsByBookerIdAndItemIdAndStatus(userId, itemId, Status.APPROVED))
+                .thenReturn(true);
+
+        assertTrue(service.hasUserBookedItem(userId, itemId));
+    }
+
+    @Test
+    void hasUserBookedItem_whenCached_thenRepositoryNotInvoked() {
+        when(commentEligibilityCache.isEligible(userId, itemId)).thenReturn(true);
+
+        assertTrue(service.hasUserBookedItem(userId, itemId));
+
+        verify(bookingRepository, never()).existsByBookerIdAndItemIdAndEndIsBeforeAndStatus(
+                anyLong(), anyLong(), any(LocalDateTime.class), any(Status.class));
+    }
+
+    @Test
+    void addLastAndNextBookings_whenItemsEmpty_thenRepositoryNotInvoked() {
+        service.addLastAndNextBookings(Collections.emptyList());
+
+        verify(bookingRepository, never()).findLastAndNextBookingsByItemIds(anyCollection());
+    }
+
+    @Test
+    void addLastAndNextBookings_whenBookingsFound_thenSetToItems() {
+        ItemResponseDto item = new ItemResponseDto();
+        item.setId(itemId);
+        ItemBookingView last = mock(ItemBookingView.class);
+        when(last.getItemId()).thenReturn(itemId);
+        when(last.isPast()).thenReturn(true);
+        ItemBookingView next = mock(ItemBookingView.class);
+        when(next.getItemId()).thenReturn(itemId);
+        when(next.isPast()).thenReturn(false);
+        BookingInfoDto lastInfo = new BookingInfoDto();
+        lastInfo.setId(1L);
+        BookingInfoDto nextInfo = new BookingInfoDto();
+        nextInfo.setId(2L);
+
+        when(bookingRepository.findLastAndNextBookingsByItemIds(anyCollection())).thenReturn(List.of(last, next));
+        when(bookingMapper.toItemBookingInfo(last)).thenReturn(lastInfo);
+        when(bookingMapper.toItemBookingInfo(next)).thenReturn(nextInfo);
+
+        service.addLastAndNextBookings(List.of(item));
+
+        verify(bookingRepository, times(1)).findLastAndNextBookingsByItemIds(anyCollection());
+        assertEquals(lastInfo, item.getLastBooking());
+        assertEquals(nextInfo, item.getNextBooking());
     }
-}
\ No newline at end of file
+}
@@ -7,7 +7,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
-import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.exception.BookingNotFoundException;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
@@ -20,9 +21,13 @@ import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,6 +45,8 @@ class BookingServiceIntegrationTest {
     UserRepository userRepository;
     @Autowired
     ItemRepository itemRepository;
+    @Autowired
+    EntityManager entityManager;
     User user1;
     User user2;
 
@@ -133,6 +140,32 @@ class BookingServiceIntegrationTest {
         assertEquals(b, result);
     }
 
+    @Test
+    void createAll() {
+        Booking first = new Booking();
+        first.setStart(now.plusDays(40));
+        first.setEnd(now.plusDays(41));
+        first.setItem(item1);
+        Booking second = new Booking();
+        second.setStart(now.plusDays(41));
+        second.setEnd(now.plusDays(42));
+        second.setItem(item1);
+        Booking overlapping = new Booking();
+        overlapping.setStart(now.plusDays(40).plusHours(12));
+        overlapping.setEnd(now.plusDays(43));
+        overlapping.setItem(item1);
+
+        List<BookingBatchResultDto> result = bookingService.createAll(List.of(first, second, overlapping),
+                user2.getId());
+
+        assertEquals(3, result.size());
+        assertEquals(first.getId(), result.get(0).getBooking().getId());
+        assertEquals(second.getId(), result.get(1).getBooking().getId());
+        assertNotNull(result.get(2).getError());
+        assertEquals(Status.WAITING, bookingRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(Status.WAITING, bookingRepository.findById(second.getId()).orElseThrow().getStatus());
+    }
+
     @Test
     void create_whenItemNotAvailable_thenItemNotAvailableThrown() {
         item1.setAvailable(false);
@@ -181,6 +214,15 @@ class BookingServiceIntegrationTest {
                 () -> bookingService.approve(bookingWaiting.getId(), user1.getId(), true));
     }
 
+    @Test
+    void approveAll_whenDecided_thenReturnedBookingsDetachedAndRowsUpdatedOnce() {
+        List<Booking> result = bookingService.approveAll(Map.of(bookingWaiting.getId(), false), user2.getId());
+
+        assertEquals(Status.REJECTED, result.get(0).getStatus());
+        assertFalse(entityManager.contains(result.get(0)));
+        assertEquals(Status.REJECTED, bookingRepository.findById(bookingWaiting.getId()).orElseThrow().getStatus());
+    }
+
     @Test
     void findByIdAndUserId() {
         Booking expected = bookingWaiting;
@@ -207,15 +249,26 @@ class BookingServiceIntegrationTest {
 
     @Test
     void findByUserIdAndState_caseAll() {
-        List<Booking> result = bookingService.findByUserIdAndState(user1.getId(), "ALL", 0, 5);
+        List<BookingResponseDto> result = bookingService.findByUserIdAndState(user1.getId(), "ALL", 0, 5);
 
         assertFalse(result.isEmpty());
         assertEquals(2, result.size());
     }
 
+    @Test
+    void exportByUserId_thenSameBookingsAsFullListing() {
+        List<Long> exported = new ArrayList<>();
+
+        bookingService.exportByUserId(user1.getId(), booking -> exported.add(booking.getId()));
+
+        assertEquals(bookingService.findByUserIdAndState(user1.getId(), "ALL", 0, 20).stream()
+                .map(BookingResponseDto::getId)
+                .collect(Collectors.toList()), exported);
+    }
+
     @Test
     void findByUserIdAndState_caseFuture() {
-        List<Booking> result = bookingService.findByUserIdAndState(user1.getId(), "FUTURE", 0, 5);
+        List<BookingResponseDto> result = bookingService.findByUserIdAndState(user1.getId(), "FUTURE", 0, 5);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
@@ -223,7 +276,7 @@ class BookingServiceIntegrationTest {
 
     @Test
     void findByUserIdAndState_casePast() {
-        List<Booking> result = bookingService.findByUserIdAndState(user1.getId(), "PAST", 0, 5);
+        List<BookingResponseDto> result = bookingService.findByUserIdAndState(user1.getId(), "PAST", 0, 5);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
@@ -231,7 +284,7 @@ class BookingServiceIntegrationTest {
 
     @Test
     void findByUserIdAndState_caseCurrent() {
-        List<Booking> result = bookingService.findByUserIdAndState(user2.getId(), "CURRENT", 0, 5);
+        List<BookingResponseDto> result = bookingService.findByUserIdAndState(user2.getId(), "CURRENT", 0, 5);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
@@ -239,7 +292,7 @@ class BookingServiceIntegrationTest {
 
     @Test
     void findByUserIdAndState_caseWaiting() {
-        List<Booking> result = bookingService.findByUserIdAndState(user1.getId(), "WAITING", 0, 5);
+        List<BookingResponseDto> result = bookingService.findByUserIdAndState(user1.getId(), "WAITING", 0, 5);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
@@ -247,7 +300,7 @@ class BookingServiceIntegrationTest {
 
     @Test
     void findByOwnerIdAndState_caseAll() {
-        List<Booking> result = bookingService.findByOwnerIdAndState(user1.getId(), "ALL", 0, 5);
+        List<BookingResponseDto> result = bookingService.findByOwnerIdAndState(user1.getId(), "ALL", 0, 5);
 
         assertFalse(result.isEmpty());
         assertEquals(2, result.size());
@@ -255,7 +308,7 @@ class BookingServiceIntegrationTest {
 
     @Test
     void findByOwnerIdAndState_caseFuture() {
-        List<Booking> result = bookingService.findByOwnerIdAndState(user1.getId(), "FUTURE", 0, 5);
+        List<BookingResponseDto> result = bookingService.findByOwnerIdAndState(user1.getId(), "FUTURE", 0, 5);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
@@ -263,7 +316,7 @@ class BookingServiceIntegrationTest {
 
     @Test
     void findByOwnerIdAndState_casePast() {
-        List<Booking> result = bookingService.findByOwnerIdAndState(user2.getId(), "PAST", 0, 5);
+        List<BookingResponseDto> result = bookingService.findByOwnerIdAndState(user2.getId(), "PAST", 0, 5);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
@@ -271,7 +324,7 @@ class BookingServiceIntegrationTest {
 
     @Test
     void findByOwnerIdAndState_caseCurrent() {
-        List<Booking> result = bookingService.findByOwnerIdAndState(user1.getId(), "CURRENT", 0, 5);
+        List<BookingResponseDto> result = bookingService.findByOwnerIdAndState(user1.getId(), "CURRENT", 0, 5);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
@@ -279,26 +332,12 @@ class BookingServiceIntegrationTest {
 
     @Test
     void findByOwnerIdAndState_caseWaiting() {
-        List<Booking> result = bookingService.findByOwnerIdAndState(user2.getId(), "WAITING", 0, 5);
+        List<BookingResponseDto> result = bookingService.findByOwnerIdAndState(user2.getId(), "WAITING", 0, 5);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
     }
 
-    @Test
-    void findLastBookingByItemId() {
-        BookingInfoDto result = bookingService.findLastBookingByItemId(item2.getId());
-
-        assertNotNull(result);
-    }
-
-    @Test
-    void findNextBookingByItemId() {
-        BookingInfoDto result = bookingService.findNextBookingByItemId(item1.getId());
-
-        assertNotNull(result);
-    }
-
     @Test
     void hasUserBookedItem() {
         Boolean result = bookingService.hasUserBookedItem(user1.getId(), item1.getId());
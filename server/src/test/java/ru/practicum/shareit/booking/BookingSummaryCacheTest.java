@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.service.BookingSummaryCache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BookingSummaryCacheTest {
+    private final BookingSummaryCache cache = new BookingSummaryCache(10, Duration.ofMinutes(1),
+            new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void findByBookerId_whenCached_thenLoadedOnce() {
+        BookingSummaryDto first = cache.findByBookerId(1L, this::load);
+        BookingSummaryDto second = cache.findByBookerId(1L, this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void findByOwnerId_whenSameUserIsBooker_thenCachedSeparately() {
+        cache.findByBookerId(1L, this::load);
+        cache.findByOwnerId(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evict_thenBookerAndOwnerReloaded() {
+        cache.findByBookerId(1L, this::load);
+        cache.findByOwnerId(2L, this::load);
+        cache.findByBookerId(3L, this::load);
+
+        cache.evict(1L, 2L);
+        cache.findByBookerId(1L, this::load);
+        cache.findByOwnerId(2L, this::load);
+        cache.findByBookerId(3L, this::load);
+
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void findByBookerId_whenEvictedWhileLoading_thenNotCached() {
+        cache.findByBookerId(1L, () -> {
+            cache.evict(1L, 2L);
+            return load();
+        });
+        cache.findByBookerId(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private BookingSummaryDto load() {
+        long n = loads.incrementAndGet();
+        return new BookingSummaryDto(n, 0L, 0L, 0L, 0L, 0L);
+    }
+}
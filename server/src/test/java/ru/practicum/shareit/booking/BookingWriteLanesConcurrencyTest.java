@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the parallel booking scenario again with writes routed through the single-writer lanes.
+ */
+@SpringBootTest(properties = "shareit.booking.single-writer.enabled=true")
+class BookingWriteLanesConcurrencyTest extends BookingOverlapConcurrencyTest {
+}
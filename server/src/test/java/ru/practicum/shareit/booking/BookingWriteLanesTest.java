@@ -0,0 +1,195 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
+import ru.practicum.shareit.booking.exception.BookingWriteUnavailableException;
+import ru.practicum.shareit.booking.service.BookingWriteLanes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingWriteLanesTest {
+    @Mock
+    PlatformTransactionManager transactionManager;
+    BookingWriteLanes lanes;
+
+    @AfterEach
+    void tearDown() {
+        if (lanes != null) {
+            lanes.shutdown();
+        }
+    }
+
+    @Test
+    void submit_whenDisabled_thenRunOnCallingThread() {
+        lanes = new BookingWriteLanes(false, 4, 16, Duration.ofSeconds(5), transactionManager);
+
+        Thread thread = lanes.submit(() -> 1L, Thread::currentThread);
+
+        assertEquals(Thread.currentThread(), thread);
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    void submit_whenEnabled_thenRunInLaneOfItem() {
+        lanes = new BookingWriteLanes(true, 4, 16, Duration.ofSeconds(5), transactionManager);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        Thread first = lanes.submit(() -> 1L, Thread::currentThread);
+        Thread second = lanes.submit(() -> 5L, Thread::currentThread);
+
+        assertNotEquals(Thread.currentThread(), first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void submit_whenCommandsQueuedBehindRunningOne_thenRunInOneTransaction() throws Exception {
+        lanes = new BookingWriteLanes(true, 1, 16, Duration.ofSeconds(5), transactionManager);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocking = submitFromAnotherThread(1L, () -> {
+            started.countDown();
+            await(release);
+            return 0;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger runs = new AtomicInteger();
+        List<CompletableFuture<Integer>> queued = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            queued.add(submitFromAnotherThread(1L, runs::incrementAndGet));
+        }
+        release.countDown();
+
+        blocking.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Integer> result : queued) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(3, runs.get());
+        verify(transactionManager, times(2)).getTransaction(any());
+    }
+
+    @Test
+    void submit_whenNotStartedInTime_thenUnavailableThrownAndCommandDropped() throws Exception {
+        lanes = new BookingWriteLanes(true, 1, 16, Duration.ofMillis(500), transactionManager);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        submitFromAnotherThread(1L, () -> {
+            started.countDown();
+            await(release);
+            return 0;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThrows(BookingWriteUnavailableException.class, () -> lanes.submit(() -> 1L, runs::incrementAndGet));
+        release.countDown();
+
+        assertEquals(1, lanes.submit(() -> 1L, () -> 1));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void shutdown_thenQueuedCommandsFailed() throws Exception {
+        lanes = new BookingWriteLanes(true, 1, 16, Duration.ofSeconds(5), transactionManager);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        submitFromAnotherThread(1L, () -> {
+            started.countDown();
+            await(release);
+            return 0;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = submitFromAnotherThread(1L, () -> 1);
+
+        lanes.shutdown();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof BookingWriteUnavailableException);
+        assertThrows(BookingWriteUnavailableException.class, () -> lanes.submit(() -> 1L, () -> 1));
+        release.countDown();
+    }
+
+    @Test
+    void submit_whenCommandFails_thenOnlyThatCallerGetsError() {
+        lanes = new BookingWriteLanes(true, 1, 16, Duration.ofSeconds(5), transactionManager);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        assertThrows(BookingOverlapException.class, () -> lanes.submit(() -> 1L, () -> {
+            throw new BookingOverlapException("overlap");
+        }));
+        assertEquals(1, lanes.submit(() -> 1L, () -> 1));
+    }
+
+    @Test
+    void submit_whenGroupCommitFails_thenCommandRunAlone() {
+        lanes = new BookingWriteLanes(true, 1, 16, Duration.ofSeconds(5), transactionManager);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        doThrow(new TransactionSystemException("commit failed")).doNothing()
+                .when(transactionManager).commit(any());
+        AtomicInteger runs = new AtomicInteger();
+
+        assertEquals(2, lanes.submit(() -> 7L, runs::incrementAndGet));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    /**
+     * Submits the command from a new thread and returns once the command is queued or done; a caller waits on its
+     * command only after queueing it.
+     */
+    private <T> CompletableFuture<T> submitFromAnotherThread(Long itemId, Supplier<T> command)
+            throws InterruptedException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Thread caller = new Thread(() -> {
+            try {
+                result.complete(lanes.submit(() -> itemId, command));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        caller.start();
+        while (!result.isDone() && caller.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        return result;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
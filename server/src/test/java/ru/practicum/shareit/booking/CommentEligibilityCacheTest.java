@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.service.CommentEligibilityCache;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommentEligibilityCacheTest {
+    private final CommentEligibilityCache cache = new CommentEligibilityCache();
+
+    @Test
+    void isEligible_whenMarked_thenTrueForThatPairOnly() {
+        cache.markEligible(1L, 2L);
+
+        assertTrue(cache.isEligible(1L, 2L));
+        assertFalse(cache.isEligible(2L, 1L));
+    }
+
+    @Test
+    void markEligible_whenCacheIsFull_thenLeastRecentlyUsedEvicted() {
+        cache.markEligible(0L, 0L);
+        for (long i = 1; i <= 10_000; i++) {
+            cache.isEligible(0L, 0L);
+            cache.markEligible(i, i);
+        }
+
+        assertTrue(cache.isEligible(0L, 0L));
+        assertFalse(cache.isEligible(1L, 1L));
+        assertTrue(cache.isEligible(10_000L, 10_000L));
+    }
+}
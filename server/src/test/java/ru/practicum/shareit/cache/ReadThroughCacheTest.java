@@ -0,0 +1,142 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReadThroughCacheTest {
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_whenCalledTwice_thenLoadedOnceAndHitCounted() {
+        ReadThroughCache<Long, String> cache = cache(10, Duration.ofMinutes(1));
+
+        assertEquals("1", cache.get(1L, () -> load(1L)));
+        assertEquals("1", cache.get(1L, () -> load(1L)));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, count("hit"));
+        assertEquals(1, count("miss"));
+    }
+
+    @Test
+    void get_whenConcurrentMisses_thenLoadedOnce() throws Exception {
+        ReadThroughCache<Long, String> cache = cache(10, Duration.ofMinutes(1));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> cache.get(1L, () -> {
+                loading.countDown();
+                await(release);
+                return load(1L);
+            }));
+            loading.await(5, TimeUnit.SECONDS);
+            List<Future<String>> others = List.of(
+                    executor.submit(() -> cache.get(1L, () -> load(1L))),
+                    executor.submit(() -> cache.get(1L, () -> load(1L))));
+            release.countDown();
+
+            assertEquals("1", first.get(5, TimeUnit.SECONDS));
+            for (Future<String> other : others) {
+                assertEquals("1", other.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_whenLoadFailed_thenNotCached() {
+        ReadThroughCache<Long, String> cache = cache(10, Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals("1", cache.get(1L, () -> load(1L)));
+    }
+
+    @Test
+    void get_whenExpiredOrEvicted_thenLoadedAgain() throws InterruptedException {
+        ReadThroughCache<Long, String> expiring = cache(10, Duration.ofMillis(1));
+        expiring.get(1L, () -> load(1L));
+        Thread.sleep(5);
+        expiring.get(1L, () -> load(1L));
+
+        ReadThroughCache<Long, String> cache = cache(10, Duration.ofMinutes(1));
+        cache.get(1L, () -> load(1L));
+        cache.evict(1L);
+        cache.get(1L, () -> load(1L));
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_whenFull_thenLeastRecentlyUsedEvicted() {
+        ReadThroughCache<Long, String> cache = cache(2, Duration.ofMinutes(1));
+        cache.get(1L, () -> load(1L));
+        cache.get(2L, () -> load(2L));
+        cache.get(1L, () -> load(1L));
+        cache.get(3L, () -> load(3L));
+
+        cache.get(1L, () -> load(1L));
+        cache.get(2L, () -> load(2L));
+
+        assertEquals(4, loads.get());
+        assertEquals(2, meterRegistry.get("cache.evictions").tag("cache", "test").counter().count());
+    }
+
+    @Test
+    void getAll_whenSomeCached_thenOnlyMissingLoadedInOneCall() {
+        ReadThroughCache<Long, String> cache = cache(10, Duration.ofMinutes(1));
+        cache.get(1L, () -> load(1L));
+        AtomicInteger batches = new AtomicInteger();
+
+        Map<Long, String> values = cache.getAll(List.of(1L, 2L, 3L), ids -> {
+            batches.incrementAndGet();
+            assertEquals(List.of(2L, 3L), ids);
+            return ids.stream().filter(id -> id != 3L).collect(Collectors.toMap(id -> id, this::load));
+        });
+
+        assertEquals(Map.of(1L, "1", 2L, "2"), values);
+        assertEquals(1, batches.get());
+        assertEquals("3", cache.get(3L, () -> load(3L)));
+    }
+
+    private ReadThroughCache<Long, String> cache(int maxSize, Duration ttl) {
+        return new ReadThroughCache<>("test", maxSize, ttl, meterRegistry);
+    }
+
+    private String load(Long key) {
+        loads.incrementAndGet();
+        return String.valueOf(key);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "test").tag("result", result).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
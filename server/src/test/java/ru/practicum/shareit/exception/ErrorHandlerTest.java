@@ -4,7 +4,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.web.bind.MissingRequestHeaderException;
 import ru.practicum.shareit.booking.exception.BookingNotFoundException;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
+import ru.practicum.shareit.booking.exception.BookingWrongCursorException;
 import ru.practicum.shareit.booking.exception.BookingWrongStateRequestedException;
+import ru.practicum.shareit.idempotency.exception.IdempotencyKeyReusedException;
 import ru.practicum.shareit.item.exception.IllegalCommentException;
 import ru.practicum.shareit.item.exception.ItemNotAvailableException;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
@@ -50,6 +53,15 @@ class ErrorHandlerTest {
         assertEquals(e.getMessage(), result.getError());
     }
 
+    @Test
+    void handleIdempotencyKeyReusedException() {
+        IdempotencyKeyReusedException e = new IdempotencyKeyReusedException("message");
+
+        ErrorResponse result = errorHandler.handleIdempotencyKeyReusedException(e);
+
+        assertEquals(e.getMessage(), result.getError());
+    }
+
     @Test
     void handleEmailAlreadyExistException() {
         EmailAlreadyExistsException e = new EmailAlreadyExistsException("message");
@@ -112,4 +124,22 @@ class ErrorHandlerTest {
 
         assertEquals(e.getMessage(), result.getError());
     }
-}
\ No newline at end of file
+
+    @Test
+    void handleBookingWrongCursorException() {
+        BookingWrongCursorException e = new BookingWrongCursorException("message");
+
+        ErrorResponse result = errorHandler.handleBookingWrongCursorException(e);
+
+        assertEquals(e.getMessage(), result.getError());
+    }
+
+    @Test
+    void handleBookingOverlapException() {
+        BookingOverlapException e = new BookingOverlapException("message");
+
+        ErrorResponse result = errorHandler.handleBookingOverlapException(e);
+
+        assertEquals(e.getMessage(), result.getError());
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.idempotency;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.idempotency.exception.IdempotencyKeyReusedException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyStoreTest {
+    private final IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1));
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void execute_whenKeyRepeated_thenStoredResponseReturned() {
+        assertEquals(1, store.execute(1L, "op", "key", "request", runs::incrementAndGet));
+        assertEquals(1, store.execute(1L, "op", "key", "request", runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_whenNoKey_thenAlwaysRun() {
+        store.execute(1L, "op", null, "request", runs::incrementAndGet);
+        store.execute(1L, "op", null, "request", runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void execute_whenSameKeyForOtherUserOrOperation_thenRunAgain() {
+        store.execute(1L, "op", "key", "request", runs::incrementAndGet);
+        store.execute(2L, "op", "key", "request", runs::incrementAndGet);
+        store.execute(1L, "other", "key", "request", runs::incrementAndGet);
+
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void execute_whenKeyReusedForOtherRequest_thenIdempotencyKeyReusedThrown() {
+        store.execute(1L, "op", "key", "request", runs::incrementAndGet);
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> store.execute(1L, "op", "key", "other request", runs::incrementAndGet));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_whenActionFailed_thenRetryRunsAgain() {
+        assertThrows(IllegalStateException.class, () -> store.execute(1L, "op", "key", "request", () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(2, store.execute(1L, "op", "key", "request", runs::incrementAndGet));
+    }
+
+    @Test
+    void execute_whenExpired_thenRunAgain() {
+        IdempotencyStore expiring = new IdempotencyStore(Duration.ofMillis(-1));
+
+        expiring.execute(1L, "op", "key", "request", runs::incrementAndGet);
+        expiring.execute(1L, "op", "key", "request", runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void execute_whenRetriedWhileRunning_thenRetryWaitsForResponse() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() ->
+                store.execute(1L, "op", "key", "request", () -> {
+                    started.countDown();
+                    await(release);
+                    return runs.incrementAndGet();
+                }));
+        started.await(5, TimeUnit.SECONDS);
+
+        CompletableFuture<Integer> retry = CompletableFuture.supplyAsync(() ->
+                store.execute(1L, "op", "key", "request", runs::incrementAndGet));
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, retry.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.model.GeoCell;
+import ru.practicum.shareit.item.model.GeoCell.Range;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoCellTest {
+
+    @Test
+    void of_whenCoordinateMissing_thenNull() {
+        assertNull(GeoCell.of(55.75, null));
+        assertNull(GeoCell.of(null, 37.62));
+    }
+
+    @Test
+    void distanceKm_whenMoscowAndSaintPetersburg_thenAbout634() {
+        assertEquals(634, GeoCell.distanceKm(55.7558, 37.6173, 59.9343, 30.3351), 2);
+    }
+
+    @Test
+    void cover_whenPointsWithinRadius_thenTheirCellsCovered() {
+        Random random = new Random(42);
+        double[][] centers = {{55.7558, 37.6173}, {-33.87, 151.21}, {0, 179.99}, {89.9, 10}, {-45, -179.5}};
+        for (double[] center : centers) {
+            for (double radiusKm : new double[]{0.5, 10, 300}) {
+                List<Range> ranges = GeoCell.cover(center[0], center[1], radiusKm);
+                assertTrue(ranges.size() <= 32, () -> ranges.size() + " ranges");
+                for (int i = 0; i < 1_000; i++) {
+                    double latitude = center[0] + (random.nextDouble() * 2 - 1) * radiusKm / 100;
+                    latitude = Math.max(-90, Math.min(90, latitude));
+                    double longitude = center[1] + (random.nextDouble() * 2 - 1) * radiusKm / 20;
+                    longitude = longitude > 180 ? longitude - 360 : longitude < -180 ? longitude + 360 : longitude;
+                    if (GeoCell.distanceKm(center[0], center[1], latitude, longitude) <= radiusKm) {
+                        long code = GeoCell.of(latitude, longitude);
+                        assertTrue(ranges.stream().anyMatch(range -> range.getFrom() <= code && code <= range.getTo()),
+                                "(" + latitude + ", " + longitude + ") is not covered");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void cover_whenRangesReturned_thenSortedAndDisjoint() {
+        List<Range> ranges = GeoCell.cover(55.7558, 37.6173, 5);
+
+        for (int i = 1; i < ranges.size(); i++) {
+            assertTrue(ranges.get(i - 1).getTo() + 1 < ranges.get(i).getFrom());
+        }
+    }
+
+    @Test
+    void cover_whenSmallRadius_thenFarPointsNotCovered() {
+        List<Range> ranges = GeoCell.cover(55.7558, 37.6173, 1);
+        long far = GeoCell.of(55.85, 37.6173);
+
+        assertFalse(ranges.stream().anyMatch(range -> range.getFrom() <= far && far <= range.getTo()));
+    }
+}
@@ -9,25 +9,34 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.comment.CommentRequestDto;
+import ru.practicum.shareit.item.exception.ItemWrongSearchModeException;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemListMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemController.class)
+@Import(IdempotencyStore.class)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 class ItemControllerTest {
 
     static final String USER_HEADER = "X-Sharer-User-Id";
+    static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
     final long userId = 1L;
     final long itemId = 2L;
     @Autowired
@@ -66,6 +75,20 @@ class ItemControllerTest {
         verify(itemService, times(1)).create(itemDto, userId);
     }
 
+    @Test
+    @SneakyThrows
+    void createItem_whenIdempotencyKeyRepeated_thenCreatedOnce() {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/items").contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(itemDto))
+                            .header(USER_HEADER, userId)
+                            .header(IDEMPOTENCY_HEADER, "key"))
+                    .andExpect(status().isOk());
+        }
+
+        verify(itemService, times(1)).create(itemDto, userId);
+    }
+
     /*
         @Test
         @SneakyThrows
@@ -232,10 +255,63 @@ class ItemControllerTest {
                 .andExpect(status().isOk());
 
         verify(itemService, times(1)).search(
-                text, Integer.parseInt(from), Integer.parseInt(size)
+                text, "plain", Integer.parseInt(from), Integer.parseInt(size)
         );
     }
 
+    @Test
+    @SneakyThrows
+    void search_whenRankedMode_thenModePassed() {
+        String text = "text ";
+
+        mockMvc.perform(get("/items/search")
+                        .header(USER_HEADER, userId)
+                        .param("mode", "ranked")
+                        .param("text", text))
+                .andExpect(status().isOk());
+
+        verify(itemService, times(1)).search(text, "ranked", 0, 20);
+    }
+
+    @Test
+    @SneakyThrows
+    void search_whenNear_thenSearchedNearPoint() {
+        mockMvc.perform(get("/items/search")
+                        .header(USER_HEADER, userId)
+                        .param("text", "")
+                        .param("near", "55.7558,37.6173")
+                        .param("radius", "2.5"))
+                .andExpect(status().isOk());
+
+        verify(itemService, times(1)).searchNear("", "plain", "55.7558,37.6173", 2.5, 0, 20);
+        verify(itemService, never()).search(anyString(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    @SneakyThrows
+    void search_whenUnknownMode_thenReturnedBadRequest() {
+        when(itemService.search("text", "fuzzy", 0, 20))
+                .thenThrow(new ItemWrongSearchModeException("Unknown search mode: fuzzy"));
+
+        mockMvc.perform(get("/items/search")
+                        .header(USER_HEADER, userId)
+                        .param("mode", "fuzzy")
+                        .param("text", "text"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    void suggest_withoutLimit_thenInvokedWithLimit10() {
+        when(itemService.suggest("дре", 10)).thenReturn(List.of("Дрель"));
+
+        mockMvc.perform(get("/items/suggest")
+                        .header(USER_HEADER, userId)
+                        .param("prefix", "дре"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[\"Дрель\"]"));
+    }
+
     @Test
     @SneakyThrows
     void search_withoutParams_thenInvokedWithFrom0AndSize20() {
@@ -249,7 +325,7 @@ class ItemControllerTest {
                 .andExpect(status().isOk());
 
         verify(itemService, times(1)).search(
-                text, Integer.parseInt(from), Integer.parseInt(size)
+                text, "plain", Integer.parseInt(from), Integer.parseInt(size)
         );
     }
 /*
@@ -324,4 +400,19 @@ class ItemControllerTest {
 
         verify(itemService, never()).addComment(anyLong(), anyLong(), any());
     }*/
-}
\ No newline at end of file
+
+    @Test
+    @SneakyThrows
+    void getAvailability() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = from.plusDays(7);
+
+        mockMvc.perform(get("/items/{itemId}/availability", itemId)
+                        .header(USER_HEADER, userId)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk());
+
+        verify(itemService, times(1)).findAvailability(itemId, from, to);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.item;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemLocationDto;
+import ru.practicum.shareit.item.model.GeoCell;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the cell-range search near a point with computing the distance to every row, on 1M items spread over
+ * about a million square kilometers. Takes a few minutes, so it only runs with {@code -Dbenchmark=true}, e.g.
+ * {@code mvn test -pl server -Dtest=ItemGeoSearchBenchmarkTest -Dbenchmark=true}.
+ */
+@Slf4j
+@DataJpaTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ItemGeoSearchBenchmarkTest {
+    static final int ITEMS = 1_000_000;
+    static final int BATCH = 10_000;
+    static final int SEARCHES = 200;
+    static final int FULL_SCANS = 5;
+    static final double RADIUS_KM = 5;
+    static final String FULL_SCAN = "SELECT id FROM items WHERE available AND 2 * 6371.0088 * ASIN(SQRT(" +
+            "POWER(SIN(RADIANS(latitude - ?) / 2), 2) + " +
+            "COS(RADIANS(?)) * COS(RADIANS(latitude)) * POWER(SIN(RADIANS(longitude - ?) / 2), 2))) <= ?";
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ItemRepository itemRepository;
+    final Random random = new Random(42);
+
+    @Test
+    void searchNear_whenMillionItems_thenCellRangesFasterThanFullScan() {
+        seed();
+        List<double[]> centers = new ArrayList<>();
+        for (int i = 0; i < SEARCHES; i++) {
+            centers.add(randomLocation());
+        }
+
+        for (int i = 0; i < 20; i++) {
+            searchCells(centers.get(i));
+        }
+        long found = 0;
+        long cellsStart = System.nanoTime();
+        for (double[] center : centers) {
+            found += searchCells(center).size();
+        }
+        double cellsMs = (System.nanoTime() - cellsStart) / 1e6 / SEARCHES;
+
+        double fullScanMs = 0;
+        for (int i = 0; i < FULL_SCANS; i++) {
+            double[] center = centers.get(i);
+            long start = System.nanoTime();
+            Set<Long> expected = searchFullScan(center);
+            fullScanMs += (System.nanoTime() - start) / 1e6 / FULL_SCANS;
+            assertEquals(expected, searchCells(center), "cell ranges must find the same items as the full scan");
+        }
+
+        log.info("{} items, radius {} km: cell ranges {} ms per search ({} items found on average), " +
+                        "distance to every row {} ms per search", ITEMS, RADIUS_KM, String.format("%.2f", cellsMs),
+                found / SEARCHES, String.format("%.2f", fullScanMs));
+        assertTrue(cellsMs * 10 < fullScanMs, "cell ranges should be at least ten times faster");
+    }
+
+    private Set<Long> searchCells(double[] center) {
+        Set<Long> ids = new TreeSet<>();
+        for (ItemLocationDto item : itemRepository.findAvailableInCells(GeoCell.cover(center[0], center[1],
+                RADIUS_KM))) {
+            if (GeoCell.distanceKm(center[0], center[1], item.getLatitude(), item.getLongitude()) <= RADIUS_KM) {
+                ids.add(item.getId());
+            }
+        }
+        return ids;
+    }
+
+    private Set<Long> searchFullScan(double[] center) {
+        return new TreeSet<>(jdbcTemplate.queryForList(FULL_SCAN, Long.class, center[0], center[0], center[1],
+                RADIUS_KM));
+    }
+
+    private void seed() {
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('owner', 'owner@mail.ru')");
+        Long ownerId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        for (int from = 0; from < ITEMS; from += BATCH) {
+            List<Object[]> rows = new ArrayList<>(BATCH);
+            for (int i = from; i < from + BATCH; i++) {
+                double[] location = randomLocation();
+                rows.add(new Object[]{"item" + i, "description" + i, ownerId, location[0], location[1],
+                        GeoCell.of(location[0], location[1])});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO items (name, description, available, owner_id, latitude, " +
+                    "longitude, geo_cell) VALUES (?, ?, TRUE, ?, ?, ?, ?)", rows);
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private double[] randomLocation() {
+        return new double[]{50 + random.nextDouble() * 10, 30 + random.nextDouble() * 15};
+    }
+}
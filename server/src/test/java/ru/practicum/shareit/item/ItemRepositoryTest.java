@@ -8,6 +8,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemLocationDto;
+import ru.practicum.shareit.item.model.GeoCell;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -159,4 +161,22 @@ class ItemRepositoryTest {
 
         assertEquals(expectedRequests, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAvailableInCells_whenItemsLocated_thenOnlyItemsInRangesFound() {
+        item1.setLatitude(55.7558);
+        item1.setLongitude(37.6173);
+        item2.setLatitude(59.9343);
+        item2.setLongitude(30.3351);
+        item3.setLatitude(55.7560);
+        item3.setLongitude(37.6175);
+        item3.setAvailable(false);
+        itemRepository.saveAllAndFlush(List.of(item1, item2, item3));
+
+        List<ItemLocationDto> result = itemRepository.findAvailableInCells(GeoCell.cover(55.7558, 37.6173, 1));
+
+        assertEquals(List.of(new ItemLocationDto(item1.getId(), item1.getName(), item1.getDescription(), 55.7558,
+                37.6173)), result);
+        assertEquals(GeoCell.of(55.7558, 37.6173), item1.getGeoCell());
+    }
+}
@@ -0,0 +1,126 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.SearchMode;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemCache;
+import ru.practicum.shareit.item.service.ItemSearch;
+import ru.practicum.shareit.item.service.ItemSearch.Engine;
+import ru.practicum.shareit.item.service.ItemSearchCache;
+import ru.practicum.shareit.item.service.ItemSearchCache.Searchable;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+import ru.practicum.shareit.item.service.ItemSuggestIndex;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchCacheTest {
+    final PageRequest pageRequest = PageRequest.of(0, 10);
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final AtomicInteger loads = new AtomicInteger();
+    @Mock
+    ItemRepository itemRepository;
+    @Mock
+    ItemSearchIndex itemSearchIndex;
+    @Mock
+    ItemSuggestIndex itemSuggestIndex;
+    ItemSearchCache cache;
+    Item drill;
+
+    @BeforeEach
+    void setUp() {
+        ItemSearch itemSearch = new ItemSearch(itemRepository, itemSearchIndex, itemSuggestIndex, Engine.SUBSTRING, 1);
+        cache = new ItemSearchCache(itemSearch, new ItemCache(100, Duration.ofMinutes(10), meterRegistry), itemRepository, meterRegistry);
+        drill = new Item();
+        drill.setId(1L);
+        drill.setName("Дрель");
+        drill.setDescription("Ударная");
+        drill.setAvailable(true);
+    }
+
+    @Test
+    void find_whenSameTextInOtherCase_thenIdsHydratedFromItemCache() {
+        when(itemRepository.findAllById(List.of(1L))).thenReturn(List.of(drill));
+
+        assertEquals(List.of(drill), find("дрель", SearchMode.PLAIN));
+        assertEquals(List.of(drill), find("ДРЕЛЬ", SearchMode.PLAIN));
+        assertEquals(List.of(drill), find("Дрель", SearchMode.PLAIN));
+
+        assertEquals(1, loads.get());
+        verify(itemRepository, times(1)).findAllById(List.of(1L));
+        assertEquals(2, count("hit"));
+        assertEquals(1, count("miss"));
+    }
+
+    @Test
+    void find_whenOtherModeOrPage_thenLoadedSeparately() {
+        find("дрель", SearchMode.PLAIN);
+        find("дрель", SearchMode.RANKED);
+        cache.find("дрель", SearchMode.PLAIN, PageRequest.of(1, 10), this::load);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void evict_whenItemMatchesText_thenOnlyItsPagesEvicted() {
+        when(itemRepository.findAllById(List.of(1L))).thenReturn(List.of(drill));
+        find("дрель", SearchMode.PLAIN);
+        find("пила", SearchMode.PLAIN);
+        find("дрелб", SearchMode.RANKED);
+
+        cache.evict(new Searchable("Дрель", "аккумуляторная", true));
+        find("дрель", SearchMode.PLAIN);
+        find("пила", SearchMode.PLAIN);
+        find("дрелб", SearchMode.RANKED);
+
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void evict_whenItemNotAvailable_thenNothingEvicted() {
+        when(itemRepository.findAllById(List.of(1L))).thenReturn(List.of(drill));
+        find("дрель", SearchMode.PLAIN);
+
+        cache.evict(new Searchable("Дрель", "аккумуляторная", false));
+        find("дрель", SearchMode.PLAIN);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void find_whenNothingFound_thenEmptyPageCached() {
+        cache.find("молоток", SearchMode.PLAIN, pageRequest, List::of);
+        cache.find("молоток", SearchMode.PLAIN, pageRequest, List::of);
+
+        verify(itemRepository, never()).findAllById(List.of());
+        assertEquals(1, count("hit"));
+    }
+
+    private List<Item> find(String text, SearchMode mode) {
+        return cache.find(text, mode, pageRequest, this::load);
+    }
+
+    private List<Item> load() {
+        loads.incrementAndGet();
+        return List.of(drill);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "itemSearch").tag("result", result).counter().count();
+    }
+}
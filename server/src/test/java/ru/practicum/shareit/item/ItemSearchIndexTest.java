@@ -0,0 +1,140 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.item.dto.ItemSearchView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+    @Mock
+    ItemRepository itemRepository;
+    ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemSearchIndex(itemRepository);
+    }
+
+    @Test
+    void search_whenNotBuilt_thenEmpty() {
+        assertTrue(index.search("дрель", 0, 10).isEmpty());
+    }
+
+    @Test
+    void search_whenBuilt_thenSubstringMatchesInIdOrder() {
+        build(view(3L, "Дрель", "Аккумуляторная"), view(1L, "Отвертка", "аккумуляторная отвертка"),
+                view(10_002L, "Пила", "Дисковая"));
+
+        assertEquals(Optional.of(List.of(1L, 3L)), index.search("КУМУЛ", 0, 10));
+        assertEquals(Optional.of(List.of(3L)), index.search("аккум", 1, 10));
+        assertEquals(Optional.of(List.of(10_002L)), index.search("пил", 0, 10));
+        assertEquals(Optional.of(List.of(1L, 3L, 10_002L)), index.search("а", 0, 10));
+        assertEquals(Optional.of(Collections.emptyList()), index.search("молоток", 0, 10));
+    }
+
+    @Test
+    void search_whenTextSpansNameAndDescription_thenNotMatched() {
+        build(view(1L, "Дрель", "ударная"));
+
+        assertEquals(Optional.of(Collections.emptyList()), index.search("льуд", 0, 10));
+    }
+
+    @Test
+    void put_whenItemUpdated_thenOldTextForgotten() {
+        build(view(1L, "Дрель", "ударная"));
+
+        index.put(item(1L, "Пила", "дисковая", true));
+
+        assertEquals(Optional.of(Collections.emptyList()), index.search("дрель", 0, 10));
+        assertEquals(Optional.of(List.of(1L)), index.search("диск", 0, 10));
+    }
+
+    @Test
+    void put_whenAvailabilityToggled_thenItemDroppedAndReturned() {
+        build(view(1L, "Дрель", "ударная"));
+
+        index.put(item(1L, "Дрель", "ударная", false));
+        assertEquals(Optional.of(Collections.emptyList()), index.search("дрель", 0, 10));
+
+        index.put(item(1L, "Дрель", "ударная", true));
+        assertEquals(Optional.of(List.of(1L)), index.search("дрель", 0, 10));
+    }
+
+    @Test
+    void searchRanked_whenNotBuilt_thenEmpty() {
+        assertTrue(index.searchRanked("дрель", 0, 10, 1).isEmpty());
+    }
+
+    @Test
+    void searchRanked_whenWordHasTypo_thenStillMatched() {
+        build(view(1L, "Дрель", "ударная"), view(2L, "Пила", "дисковая"));
+
+        assertEquals(Optional.of(List.of(1L)), index.searchRanked("дрелб", 0, 10, 1));
+        assertEquals(Optional.of(Collections.emptyList()), index.searchRanked("дрелб", 0, 10, 0));
+    }
+
+    @Test
+    void searchRanked_whenMatchedInNameAndDescription_thenNameRankedFirst() {
+        build(view(1L, "Набор", "сверла для дрели"), view(2L, "Дрель", "ударная"),
+                view(3L, "Отвертка", "крестовая"));
+
+        assertEquals(Optional.of(List.of(2L, 1L)), index.searchRanked("дрел", 0, 10, 1));
+        assertEquals(Optional.of(List.of(1L)), index.searchRanked("дрел", 1, 10, 1));
+        assertEquals(Optional.of(List.of(2L)), index.searchRanked("дрел", 0, 1, 1));
+    }
+
+    @Test
+    void searchRanked_whenSeveralWords_thenEveryWordRequired() {
+        build(view(1L, "Дрель", "ударная"), view(2L, "Дрель", "аккумуляторная"));
+
+        assertEquals(Optional.of(List.of(2L)), index.searchRanked("аккумуляторная дрель", 0, 10, 1));
+    }
+
+    private void build(ItemSearchView... views) {
+        long maxId = 0;
+        for (ItemSearchView view : views) {
+            maxId = Math.max(maxId, view.getId());
+        }
+        when(itemRepository.findMaxId()).thenReturn(maxId);
+        when(itemRepository.findSearchViewsByIdBetween(anyLong(), anyLong())).thenAnswer(invocation -> {
+            long fromId = invocation.getArgument(0);
+            long toId = invocation.getArgument(1);
+            return List.of(views).stream()
+                    .filter(view -> view.getId() >= fromId && view.getId() <= toId)
+                    .collect(Collectors.toList());
+        });
+        index.rebuild();
+    }
+
+    private static ItemSearchView view(Long id, String name, String description) {
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemSearchView.class,
+                Map.of("id", id, "name", name, "description", description));
+    }
+
+    private static Item item(Long id, String name, String description, Boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        return item;
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemLocationDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.SearchMode;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearch;
+import ru.practicum.shareit.item.service.ItemSearch.Engine;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+import ru.practicum.shareit.item.service.ItemSuggestIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchTest {
+    final PageRequest pageRequest = PageRequest.of(0, 10);
+    @Mock
+    ItemRepository itemRepository;
+    @Mock
+    ItemSearchIndex itemSearchIndex;
+    @Mock
+    ItemSuggestIndex itemSuggestIndex;
+
+    @Test
+    void search_whenSubstringEngine_thenSubstringSearchUsed() {
+        List<Item> items = List.of(new Item());
+        when(itemRepository.search("дрель", pageRequest)).thenReturn(items);
+
+        assertEquals(items, new ItemSearch(itemRepository, itemSearchIndex, itemSuggestIndex, Engine.SUBSTRING, 1).search("дрель", pageRequest));
+        verify(itemRepository, never()).searchFullText(anyString(), any());
+    }
+
+    @Test
+    void search_whenFullTextEngine_thenEveryWordMatchedAsPrefix() {
+        List<Item> items = List.of(new Item());
+        when(itemRepository.searchFullText("Дрель:* & аккум:*", pageRequest)).thenReturn(items);
+
+        assertEquals(items, new ItemSearch(itemRepository, itemSearchIndex, itemSuggestIndex, Engine.FULL_TEXT, 1).search(" Дрель, аккум!", pageRequest));
+        verify(itemRepository, never()).search(anyString(), any());
+    }
+
+    @Test
+    void search_whenFullTextEngineAndNoWords_thenNothingQueried() {
+        assertTrue(new ItemSearch(itemRepository, itemSearchIndex, itemSuggestIndex, Engine.FULL_TEXT, 1).search("&|!:*", pageRequest).isEmpty());
+
+        verify(itemRepository, never()).searchFullText(anyString(), any());
+    }
+
+    @Test
+    void search_whenIndexEngine_thenFoundPageLoadedInIndexOrder() {
+        Item first = new Item();
+        first.setId(1L);
+        Item second = new Item();
+        second.setId(2L);
+        when(itemSearchIndex.search("дрель", 0, 10)).thenReturn(Optional.of(List.of(1L, 2L)));
+        when(itemRepository.findAllById(List.of(1L, 2L))).thenReturn(new ArrayList<>(List.of(second, first)));
+
+        assertEquals(List.of(first, second),
+                new ItemSearch(itemRepository, itemSearchIndex, itemSuggestIndex, Engine.INDEX, 1).search("дрель", pageRequest));
+        verify(itemRepository, never()).search(anyString(), any());
+    }
+
+    @Test
+    void search_whenIndexNotBuilt_thenSubstringSearchUsed() {
+        List<Item> items = List.of(new Item());
+        when(itemSearchIndex.search("дрель", 0, 10)).thenReturn(Optional.empty());
+        when(itemRepository.search("дрель", pageRequest)).thenReturn(items);
+
+        assertEquals(items, new ItemSearch(itemRepository, itemSearchIndex, itemSuggestIndex, Engine.INDEX, 1).search("дрель", pageRequest));
+    }
+
+    @Test
+    void searchRanked_whenIndexBuilt_thenFoundPageLoadedInRankOrder() {
+        Item first = new Item();
+        first.setId(7L);
+        Item second = new Item();
+        second.setId(2L);
+        when(itemSearchIndex.searchRanked("дрел", 0, 10, 1)).thenReturn(Optional.of(List.of(7L, 2L)));
+        when(itemRepository.findAllById(List.of(7L, 2L))).thenReturn(new ArrayList<>(List.of(second, first)));
+
+        assertEquals(List.of(first, second),
+                new ItemSearch(itemRepository, itemSearchIndex, itemSuggestIndex, Engine.SUBSTRING, 1).searchRanked("дрел", pageRequest));
+    }
+
+    @Test
+    void indexed_whenAnyEngine_thenItemPutToIndexes() {
+        Item item = new Item();
+
+        new ItemSearch(itemRepository, itemSearchIndex, itemSuggestIndex, Engine.SUBSTRING, 1).indexed(item);
+
+        verify(itemSearchIndex).put(item);
+        verify(itemSuggestIndex).put(item);
+    }
+
+    @Test
+    void searchNear_whenItemsInCells_thenOnlyMatchingWithinRadiusReturnedNearestFirst() {
+        when(itemRepository.findAvailableInCells(anyList())).thenReturn(List.of(
+                located(1L, "Дрель", 55.7600, 37.6200),
+                located(2L, "Ударная дрель", 55.7560, 37.6175),
+                located(3L, "Пила", 55.7560, 37.6175),
+                located(4L, "Дрель", 55.8000, 37.6200)));
+        Item near = item(1L);
+        Item nearer = item(2L);
+        when(itemRepository.findAllById(List.of(2L, 1L))).thenReturn(new ArrayList<>(List.of(near, nearer)));
+
+        List<Item> result = new ItemSearch(itemRepository, itemSearchIndex, itemSuggestIndex, Engine.SUBSTRING, 1)
+                .searchNear("дрель", SearchMode.PLAIN, 55.7558, 37.6173, 1, pageRequest);
+
+        assertEquals(List.of(nearer, near), result);
+    }
+
+    @Test
+    void searchNear_whenRankedAndTypo_thenMatched() {
+        when(itemRepository.findAvailableInCells(anyList())).thenReturn(List.of(located(1L, "Дрель", 55.7558, 37.6173)));
+        Item item = item(1L);
+        when(itemRepository.findAllById(List.of(1L))).thenReturn(new ArrayList<>(List.of(item)));
+
+        assertEquals(List.of(item), new ItemSearch(itemRepository, itemSearchIndex, itemSuggestIndex, Engine.SUBSTRING, 1)
+                .searchNear("дрелт", SearchMode.RANKED, 55.7558, 37.6173, 1, pageRequest));
+    }
+
+    private static ItemLocationDto located(Long id, String name, double latitude, double longitude) {
+        return new ItemLocationDto(id, name, "", latitude, longitude);
+    }
+
+    private static Item item(Long id) {
+        Item item = new Item();
+        item.setId(id);
+        return item;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,28 +8,44 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDetailView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
+import ru.practicum.shareit.item.exception.ItemWrongLocationException;
+import ru.practicum.shareit.item.exception.ItemWrongSearchModeException;
 import ru.practicum.shareit.item.exception.WrongOwnerException;
 import ru.practicum.shareit.item.mapper.CommentListMapper;
 import ru.practicum.shareit.item.mapper.ItemListMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.SearchMode;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemCache;
+import ru.practicum.shareit.item.service.ItemSearch;
+import ru.practicum.shareit.item.service.ItemSearchCache;
+import ru.practicum.shareit.item.service.ItemSearchCache.Searchable;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -56,6 +73,12 @@ class ItemServiceImplTest {
     ItemListMapper itemListMapper;
     @Mock
     ItemRequestService itemRequestService;
+    @Mock
+    ItemSearch itemSearch;
+    @Mock
+    ItemSearchCache itemSearchCache;
+    @Spy
+    ItemCache itemCache = new ItemCache(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
     @InjectMocks
     ItemServiceImpl service;
     User user1;
@@ -101,6 +124,8 @@ class ItemServiceImplTest {
         verify(userService, times(1)).findById(userId);
         verify(itemMapper, times(1)).toItem(itemDto);
         verify(itemRepository, times(1)).save(item1);
+        verify(itemSearch, times(1)).indexed(item1);
+        verify(itemSearchCache, times(1)).evict(Searchable.of(item1));
 
         assertEquals(item1, result);
     }
@@ -116,10 +141,30 @@ class ItemServiceImplTest {
         Item result = service.update(itemDto, itemId, userId);
 
         verify(itemRepository, times(1)).save(item1);
+        verify(itemSearch, times(1)).indexed(item1);
+        verify(itemCache, times(1)).evict(item1.getId());
+        verify(itemSearchCache, never()).evict(any());
 
         assertEquals(item1, result);
     }
 
+    @Test
+    void update_whenNameChanged_thenSearchPagesOfOldAndNewNameEvicted() {
+        item1.setOwner(user1);
+        Searchable before = Searchable.of(item1);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item1));
+        doAnswer(invocation -> {
+            item1.setName("new name");
+            return null;
+        }).when(itemMapper).updateItemFromDto(itemDto, item1);
+        when(itemRepository.save(item1)).thenReturn(item1);
+
+        service.update(itemDto, itemId, userId);
+
+        verify(itemSearchCache, times(1)).evict(before);
+        verify(itemSearchCache, times(1)).evict(Searchable.of(item1));
+    }
+
     @Test
     void update_whenTheNotOwnerUpdates_thenWrongOwnerThrown() {
         item1.setOwner(user1);
@@ -154,11 +199,23 @@ class ItemServiceImplTest {
         assertEquals("Item not found", e.getMessage());
     }
 
+    @Test
+    void findById_whenCalledTwice_thenLoadedOnce() {
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item1));
+
+        service.findById(itemId);
+        Item result = service.findById(itemId);
+
+        verify(itemRepository, times(1)).findById(itemId);
+        assertEquals(item1, result);
+    }
+
     @Test
     void search_whenTextIsFound_thenReturnedItemsList() {
         List<Item> items = List.of(item1, new Item());
 
-        when(itemRepository.search(anyString(), any(Pageable.class))).thenReturn(items);
+        whenSearchCacheMisses();
+        when(itemSearch.search(anyString(), any(Pageable.class))).thenReturn(items);
 
         List<Item> result = service.search("text", 0, 10);
 
@@ -173,22 +230,114 @@ class ItemServiceImplTest {
     }
 
     @Test
-    void findByIdWithBookings() {
-        item1.setOwner(user1);
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item1));
-        when(itemMapper.toItemResponse(item1)).thenReturn(itemResponseDto);
+    void search_whenRankedMode_thenRankedSearchUsed() {
+        List<Item> items = List.of(item1);
+        whenSearchCacheMisses();
+        when(itemSearch.searchRanked("text", PageRequest.of(1, 10))).thenReturn(items);
+
+        assertEquals(items, service.search("text", "ranked", 10, 10));
+        verify(itemSearch, never()).search(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void searchNear_whenLocationValid_thenSearchedNearPointUncached() {
+        List<Item> items = List.of(item1);
+        when(itemSearch.searchNear("", SearchMode.RANKED, 55.75, -37.5, 2, PageRequest.of(1, 10))).thenReturn(items);
+
+        assertEquals(items, service.searchNear("", "ranked", " 55.75, -37.5", 2, 10, 10));
+        verifyNoInteractions(itemSearchCache);
+    }
+
+    @Test
+    void searchNear_whenLocationOrRadiusWrong_thenWrongLocationThrown() {
+        for (String near : List.of("55.75", "north,south", "91,0", "0,181", "1,2,3")) {
+            assertThrows(ItemWrongLocationException.class, () -> service.searchNear("", "plain", near, 1, 0, 10));
+        }
+        assertThrows(ItemWrongLocationException.class, () -> service.searchNear("", "plain", "0,0", 0, 0, 10));
+        verifyNoInteractions(itemSearch);
+    }
+
+    @Test
+    void search_whenUnknownMode_thenWrongSearchModeThrown() {
+        assertThrows(ItemWrongSearchModeException.class, () -> service.search("text", "fuzzy", 0, 10));
+    }
+
+    @Test
+    void suggest_whenPrefixIsBlank_thenReturnedEmptyList() {
+        assertEquals(List.of(), service.suggest(" ", 10));
+
+        verify(itemSearch, never()).suggest(anyString(), anyInt());
+    }
+
+    @Test
+    void findByIdWithBookings_whenOwner_thenBookingsAndCommentsAdded() {
+        ItemDetailView withComment = detailRow(10L);
+        when(itemRepository.findDetailById(itemId)).thenReturn(List.of(withComment, detailRow(11L)));
+        when(itemMapper.toItemResponse(withComment)).thenReturn(itemResponseDto);
 
         ItemResponseDto result = service.findByIdWithBookings(itemId, userId);
 
         assertEquals(itemResponseDto, result);
+        verify(commentListMapper, times(1)).toCommentResponseListFromDetails(anyList());
+        verify(bookingService, times(1)).addLastAndNextBookings(List.of(itemResponseDto));
+        verify(itemRepository, never()).findById(anyLong());
     }
 
+    @Test
+    void findByIdWithBookings_whenNotOwner_thenBookingsNotLookedUp() {
+        ItemDetailView withoutComments = detailRow(null);
+        when(itemRepository.findDetailById(itemId)).thenReturn(List.of(withoutComments));
+        when(itemMapper.toItemResponse(withoutComments)).thenReturn(itemResponseDto);
+
+        ItemResponseDto result = service.findByIdWithBookings(itemId, 2L);
+
+        assertEquals(itemResponseDto, result);
+        verify(commentListMapper, times(1)).toCommentResponseListFromDetails(List.of());
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void findByIdWithBookings_whenItemNotFound_thenThrown() {
+        when(itemRepository.findDetailById(itemId)).thenReturn(List.of());
+
+        assertThrows(ItemNotFoundException.class, () -> service.findByIdWithBookings(itemId, userId));
+    }
+
+    private ItemDetailView detailRow(Long commentId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", itemId);
+        row.put("ownerId", userId);
+        row.put("commentId", commentId);
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemDetailView.class, row);
+    }
 
     @Test
     void findAllByOwnerId() {
         service.findAllByOwnerId(1L, 0, 10);
 
         verify(itemRepository, times(1)).findAllByOwnerIdOrderById(anyLong(), any(Pageable.class));
+        verify(commentRepository, never()).findAllByItem_IdIn(anyCollection());
+    }
+
+    @Test
+    void findAllByOwnerId_whenItemsFound_thenBookingsAndCommentsLoadedOnce() {
+        Item item2 = new Item();
+        item2.setId(2L);
+        Comment comment = new Comment();
+        comment.setItem(item1);
+
+        when(itemRepository.findAllByOwnerIdOrderById(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(item1, item2));
+        when(commentRepository.findAllByItem_IdIn(List.of(1L, 2L))).thenReturn(List.of(comment));
+        when(itemMapper.toItemResponse(any(Item.class))).thenAnswer(invocation -> new ItemResponseDto());
+
+        List<ItemResponseDto> result = service.findAllByOwnerId(userId, 0, 10);
+
+        verify(commentRepository, times(1)).findAllByItem_IdIn(List.of(1L, 2L));
+        verify(commentListMapper, times(1)).toCommentResponseList(List.of(comment));
+        verify(bookingService, times(1)).addLastAndNextBookings(result);
+
+        assertEquals(2, result.size());
     }
 
 
@@ -224,4 +373,36 @@ class ItemServiceImplTest {
         verify(itemRepository, times(1)).findAllByRequestId(1L);
         verify(itemListMapper, times(1)).toItemResponseDtoList(anyList());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAvailability_whenItemAvailable_thenFreeSlotsReturned() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        LocalDateTime to = from.plusDays(1);
+        List<TimeSlotDto> slots = List.of(new TimeSlotDto(from, to));
+        item1.setAvailable(true);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item1));
+        when(bookingService.findFreeSlots(itemId, from, to)).thenReturn(slots);
+
+        List<TimeSlotDto> result = service.findAvailability(itemId, from, to);
+
+        assertEquals(slots, result);
+    }
+
+    @Test
+    void findAvailability_whenItemNotAvailable_thenEmptyListReturned() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        item1.setAvailable(false);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item1));
+
+        List<TimeSlotDto> result = service.findAvailability(itemId, from, from.plusDays(1));
+
+        assertEquals(List.of(), result);
+        verify(bookingService, never()).findFreeSlots(anyLong(), any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void whenSearchCacheMisses() {
+        when(itemSearchCache.find(anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> ((Supplier<List<Item>>) invocation.getArgument(3)).get());
+    }
+}
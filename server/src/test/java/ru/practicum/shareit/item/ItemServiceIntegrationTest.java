@@ -12,14 +12,18 @@ import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.exception.IllegalCommentException;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest
@@ -32,6 +36,8 @@ class ItemServiceIntegrationTest {
     ItemService itemService;
     @Autowired
     UserService userService;
+    @Autowired
+    CommentRepository commentRepository;
 
     User user1;
     Item item1;
@@ -105,6 +111,24 @@ class ItemServiceIntegrationTest {
         assertEquals(expected.getDescription(), result.getDescription());
     }
 
+    @Test
+    void findByIdWithBookings_whenCommented_thenCommentsWithAuthorsReturned() {
+        Comment comment = new Comment();
+        comment.setText("comment");
+        comment.setItem(item1);
+        comment.setAuthor(user1);
+        comment.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        commentRepository.save(comment);
+
+        ItemResponseDto result = itemService.findByIdWithBookings(item1.getId(), user1.getId() + 1);
+
+        assertEquals(1, result.getComments().size());
+        assertEquals("comment", result.getComments().get(0).getText());
+        assertEquals(user1.getName(), result.getComments().get(0).getAuthorName());
+        assertEquals(comment.getCreated(), result.getComments().get(0).getCreated());
+        assertNull(result.getLastBooking());
+    }
+
     @Test
     void findAllByOwnerId() {
         Item expected = item1;
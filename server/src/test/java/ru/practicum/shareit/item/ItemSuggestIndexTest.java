@@ -0,0 +1,93 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.item.dto.ItemSearchView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSuggestIndex;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSuggestIndexTest {
+    @Mock
+    ItemRepository itemRepository;
+    ItemSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemSuggestIndex(itemRepository);
+        when(itemRepository.findMaxId()).thenReturn(5L);
+        when(itemRepository.findSearchViewsByIdBetween(anyLong(), anyLong())).thenReturn(List.of(
+                view(1L, "Дрель"), view(2L, "Дрель ударная"), view(3L, "Дрель"), view(4L, "Дрезина"),
+                view(5L, "Пила")));
+        index.rebuild();
+    }
+
+    @Test
+    void suggest_whenPrefixMatches_thenMostCommonNamesFirst() {
+        assertEquals(List.of("Дрель", "Дрезина", "Дрель ударная"), index.suggest("ДР", 10));
+        assertEquals(List.of("Дрель", "Дрезина"), index.suggest("дре", 2));
+        assertEquals(List.of("Дрель ударная"), index.suggest("дрель ", 10));
+        assertEquals(List.of("Пила"), index.suggest("пила", 10));
+    }
+
+    @Test
+    void suggest_whenNothingStartsWithPrefix_thenEmpty() {
+        assertEquals(List.of(), index.suggest("дрели", 10));
+        assertEquals(List.of(), index.suggest("молоток", 10));
+    }
+
+    @Test
+    void put_whenItemRenamed_thenOldNameCountedOnce() {
+        index.put(item(3L, "Дрезина", true));
+        index.put(item(6L, "Дрезина", true));
+
+        assertEquals(List.of("Дрезина", "Дрель", "Дрель ударная"), index.suggest("др", 10));
+    }
+
+    @Test
+    void put_whenSpellingAddedAndRemoved_thenMostCommonSpellingSuggested() {
+        index.put(item(6L, "ДРЕЛЬ", true));
+        assertEquals(List.of("Дрель"), index.suggest("дрель", 1));
+
+        index.put(item(6L, "Пила", true));
+        assertEquals(List.of("Дрель"), index.suggest("дрель", 1));
+
+        index.put(item(1L, "дрель", true));
+        index.put(item(3L, "дрель", true));
+        assertEquals(List.of("дрель"), index.suggest("дрель", 1));
+    }
+
+    @Test
+    void put_whenItemNotAvailable_thenNameDropped() {
+        index.put(item(2L, "Дрель ударная", false));
+        index.put(item(5L, "Пила", false));
+
+        assertEquals(List.of("Дрель", "Дрезина"), index.suggest("др", 10));
+        assertEquals(List.of(), index.suggest("п", 10));
+    }
+
+    private static ItemSearchView view(Long id, String name) {
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemSearchView.class,
+                Map.of("id", id, "name", name, "description", name));
+    }
+
+    private static Item item(Long id, String name, Boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setAvailable(available);
+        return item;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,14 +8,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.user.exception.EmailAlreadyExistsException;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserCache;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +32,8 @@ class UserServiceImplTest {
     UserMapper userMapper;
     @Mock
     UserRepository userRepository;
+    @Spy
+    UserCache userCache = new UserCache(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
 
     @InjectMocks
     UserServiceImpl userService;
@@ -118,6 +124,7 @@ class UserServiceImplTest {
         User actualUser = userService.update(newUser, userId);
 
         verify(userMapper, times(1)).updateUserFromDto(newUser, oldUser);
+        verify(userCache, times(1)).evict(userId);
 
         assertEquals(newUser, actualUser);
     }
@@ -132,9 +139,21 @@ class UserServiceImplTest {
     }
 
 
+    @Test
+    void findById_whenCalledTwice_thenLoadedOnce() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
+
+        userService.findById(1L);
+        User actualUser = userService.findById(1L);
+
+        assertEquals(user1, actualUser);
+        verify(userRepository, times(1)).findById(1L);
+    }
+
     @Test
     void delete() {
         userService.delete(1L);
         verify(userRepository, times(1)).deleteById(1L);
+        verify(userCache, times(1)).evict(1L);
     }
 }
\ No newline at end of file